@@ -29,6 +29,7 @@ public class ConjureExtension {
     private final GeneratorOptions javaOptions = new GeneratorOptions();
     private final GeneratorOptions pythonOptions = new GeneratorOptions();
     private final Map<String, GeneratorOptions> genericOptions = new HashMap<>();
+    private final Map<String, GeneratorFilter> filters = new HashMap<>();
 
     public final void typescript(@DelegatesTo(GeneratorOptions.class) Closure<GeneratorOptions> closure) {
         closure.setDelegate(typescriptOptions);
@@ -51,6 +52,15 @@ public class ConjureExtension {
         closure.call();
     }
 
+    /**
+     * Restricts what the given generator ({@code java}, {@code typescript}, {@code python} or the name of a custom
+     * generator) produces from the Conjure definitions it consumes.
+     */
+    public final void filter(String generator, @DelegatesTo(GeneratorFilter.class) Closure<GeneratorFilter> closure) {
+        closure.setDelegate(getFilter(generator));
+        closure.call();
+    }
+
     public final GeneratorOptions getTypescript() {
         return typescriptOptions;
     }
@@ -66,4 +76,8 @@ public class ConjureExtension {
     public final GeneratorOptions getGenericOptions(String generator) {
         return genericOptions.computeIfAbsent(generator, g -> new GeneratorOptions());
     }
+
+    public final GeneratorFilter getFilter(String generator) {
+        return filters.computeIfAbsent(generator, g -> new GeneratorFilter());
+    }
 }
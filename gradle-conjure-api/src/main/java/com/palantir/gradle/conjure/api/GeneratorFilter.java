@@ -0,0 +1,105 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure.api;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Restricts which parts of a Conjure definition are handed to a generator. Patterns may use {@code *} as a wildcard
+ * and are matched against simple or package-qualified names: service names, {@code Service.endpoint} names and
+ * package names respectively.
+ *
+ * <p>Without any includes, everything which is not excluded is generated. Once an include is defined, only the
+ * matching endpoints, and the types and errors in matching packages, are. Any type referenced by what remains is
+ * always kept, even if its package is excluded.
+ */
+public final class GeneratorFilter implements Serializable {
+    private static final long serialVersionUID = 2381049916203756114L;
+
+    private final Set<String> includeServices = new LinkedHashSet<>();
+    private final Set<String> excludeServices = new LinkedHashSet<>();
+    private final Set<String> includeEndpoints = new LinkedHashSet<>();
+    private final Set<String> excludeEndpoints = new LinkedHashSet<>();
+    private final Set<String> includePackages = new LinkedHashSet<>();
+    private final Set<String> excludePackages = new LinkedHashSet<>();
+
+    public GeneratorFilter includeServices(String... patterns) {
+        includeServices.addAll(Arrays.asList(patterns));
+        return this;
+    }
+
+    public GeneratorFilter excludeServices(String... patterns) {
+        excludeServices.addAll(Arrays.asList(patterns));
+        return this;
+    }
+
+    public GeneratorFilter includeEndpoints(String... patterns) {
+        includeEndpoints.addAll(Arrays.asList(patterns));
+        return this;
+    }
+
+    public GeneratorFilter excludeEndpoints(String... patterns) {
+        excludeEndpoints.addAll(Arrays.asList(patterns));
+        return this;
+    }
+
+    public GeneratorFilter includePackages(String... patterns) {
+        includePackages.addAll(Arrays.asList(patterns));
+        return this;
+    }
+
+    public GeneratorFilter excludePackages(String... patterns) {
+        excludePackages.addAll(Arrays.asList(patterns));
+        return this;
+    }
+
+    public Set<String> getIncludeServices() {
+        return Collections.unmodifiableSet(includeServices);
+    }
+
+    public Set<String> getExcludeServices() {
+        return Collections.unmodifiableSet(excludeServices);
+    }
+
+    public Set<String> getIncludeEndpoints() {
+        return Collections.unmodifiableSet(includeEndpoints);
+    }
+
+    public Set<String> getExcludeEndpoints() {
+        return Collections.unmodifiableSet(excludeEndpoints);
+    }
+
+    public Set<String> getIncludePackages() {
+        return Collections.unmodifiableSet(includePackages);
+    }
+
+    public Set<String> getExcludePackages() {
+        return Collections.unmodifiableSet(excludePackages);
+    }
+
+    public boolean hasIncludes() {
+        return !includeServices.isEmpty() || !includeEndpoints.isEmpty() || !includePackages.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return !hasIncludes() && excludeServices.isEmpty() && excludeEndpoints.isEmpty() && excludePackages.isEmpty();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.util.GFileUtils;
+
+/**
+ * Builds the same source distribution and universal wheel as {@link BuildWheelTask}, but in the JVM rather than by
+ * running setuptools, using the package metadata from the generated {@code setup.py}.
+ */
+@CacheableTask
+public class BuildPythonDistributionsTask extends DefaultTask {
+    /** Gradle property which makes {@code buildWheel} package Python bindings without running Python. */
+    static final String ENABLED_PROPERTY = "com.palantir.conjure.python.jvmPackaging";
+
+    private Supplier<File> pythonDirectory;
+    private Supplier<File> distDirectory;
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public final FileCollection getSource() {
+        return getProject().fileTree(pythonDirectory.get(), tree -> {
+            tree.include("setup.py", "setup.cfg", "**/*.py", "**/py.typed");
+            tree.exclude("build/**", "dist/**");
+        });
+    }
+
+    @OutputDirectory
+    public final File getDistDirectory() {
+        return distDirectory.get();
+    }
+
+    final void setPythonDirectory(Supplier<File> pythonDirectory) {
+        this.pythonDirectory = pythonDirectory;
+    }
+
+    final void setDistDirectory(Supplier<File> distDirectory) {
+        this.distDirectory = distDirectory;
+    }
+
+    @TaskAction
+    public final void buildDistributions() {
+        GFileUtils.cleanDirectory(getDistDirectory());
+        PythonDistributions.Metadata metadata =
+                PythonDistributions.readMetadata(new File(pythonDirectory.get(), "setup.py"));
+        getLogger().info("Packaging {} {} requiring {}", metadata.name(), metadata.version(), metadata.requirements());
+        PythonDistributions.writeSdist(pythonDirectory.get(), metadata, getDistDirectory());
+        PythonDistributions.writeWheel(pythonDirectory.get(), metadata, getDistDirectory());
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.util.GFileUtils;
+
+/**
+ * Builds a source distribution and a universal wheel from the generated Python sources. The archives are made
+ * reproducible, so that identical sources produce byte-identical archives.
+ */
+@CacheableTask
+public class BuildWheelTask extends DefaultTask {
+    // Prints the versions of everything which affects the archives, tolerating missing packages so that running
+    // setup.py reports them instead
+    private static final String TOOL_VERSIONS_SCRIPT = String.join(
+            "\n",
+            "import platform",
+            "def version(module):",
+            "    try:",
+            "        return __import__(module).__version__",
+            "    except ImportError:",
+            "        return 'none'",
+            "print('python %s, setuptools %s, wheel %s' % (",
+            "    platform.python_version(), version('setuptools'), version('wheel')))");
+
+    private final Supplier<String> toolVersions = Suppliers.memoize(this::readToolVersions);
+    private Supplier<File> pythonDirectory;
+    private Supplier<File> buildDirectory;
+    private Supplier<File> distDirectory;
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public final FileCollection getSource() {
+        return getProject().fileTree(pythonDirectory.get(), tree -> {
+            tree.exclude("**/__pycache__/**", "**/*.pyc", "**/*.egg-info/**", "build/**", "dist/**");
+        });
+    }
+
+    /** The versions of Python, setuptools and wheel, none of which are otherwise part of the inputs. */
+    @Input
+    public final String getToolVersions() {
+        return toolVersions.get();
+    }
+
+    @Internal
+    public final File getBuildDirectory() {
+        return buildDirectory.get();
+    }
+
+    @OutputDirectory
+    public final File getDistDirectory() {
+        return distDirectory.get();
+    }
+
+    final void setPythonDirectory(Supplier<File> pythonDirectory) {
+        this.pythonDirectory = pythonDirectory;
+    }
+
+    final void setBuildDirectory(Supplier<File> buildDirectory) {
+        this.buildDirectory = buildDirectory;
+    }
+
+    final void setDistDirectory(Supplier<File> distDirectory) {
+        this.distDirectory = distDirectory;
+    }
+
+    @TaskAction
+    public final void buildWheel() {
+        GFileUtils.cleanDirectory(getDistDirectory());
+        GradleExecUtils.exec(
+                getProject(),
+                "build python wheel",
+                pythonDirectory.get(),
+                // Respected by bdist_wheel for the timestamps of the wheel's entries
+                ImmutableMap.of("SOURCE_DATE_EPOCH", ReproducibleArchives.SOURCE_DATE_EPOCH),
+                ImmutableList.of("python", "setup.py"),
+                ImmutableList.of(
+                        "build",
+                        "--build-base",
+                        getBuildDirectory().getAbsolutePath(),
+                        "egg_info",
+                        "--egg-base",
+                        getBuildDirectory().getAbsolutePath(),
+                        "sdist",
+                        "--dist-dir",
+                        getDistDirectory().getAbsolutePath(),
+                        "bdist_wheel",
+                        "--universal",
+                        "--dist-dir",
+                        getDistDirectory().getAbsolutePath()));
+
+        // Neither distutils nor older versions of wheel produce reproducible archives on their own
+        for (File archive : getProject().fileTree(getDistDirectory()).getFiles()) {
+            if (archive.getName().endsWith(".whl")) {
+                ReproducibleArchives.normalizeZip(archive);
+            } else if (archive.getName().endsWith(".tar.gz")) {
+                ReproducibleArchives.normalizeTarGz(getProject().tarTree(archive), archive);
+            }
+        }
+    }
+
+    private String readToolVersions() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        getProject().exec(execSpec -> {
+            execSpec.commandLine("python", "-c", TOOL_VERSIONS_SCRIPT);
+            execSpec.workingDir(pythonDirectory.get());
+            execSpec.setStandardOutput(output);
+        });
+        return new String(output.toByteArray(), StandardCharsets.UTF_8).trim();
+    }
+}
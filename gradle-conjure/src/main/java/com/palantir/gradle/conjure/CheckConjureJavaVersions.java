@@ -17,64 +17,127 @@
 package com.palantir.gradle.conjure;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.MoreCollectors;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.Project;
-import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.result.DependencyResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
+import org.gradle.api.artifacts.result.ResolvedDependencyResult;
+import org.gradle.api.file.RegularFileProperty;
 import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.TaskAction;
 import org.gradle.util.VersionNumber;
 
 public class CheckConjureJavaVersions extends DefaultTask {
+    private final Property<String> conjureJavaVersion = getProject().getObjects().property(String.class);
+    private final Provider<Map<String, String>> conjureLibVersions;
+    private final RegularFileProperty outputFile = getProject().getObjects().fileProperty();
 
     public CheckConjureJavaVersions() {
         setGroup(ConjurePlugin.TASK_GROUP);
         setDescription("Ensures that conjure-lib as at least as new as conjure-java.");
+
+        conjureLibVersions = getProject().provider(() -> ConjurePlugin.JAVA_PROJECT_SUFFIXES.stream()
+                .map(suffix -> getProject().findProject(getProject().getName() + suffix))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(
+                        Project::getPath,
+                        subproj -> findResolvedVersionOf(
+                                subproj.getConfigurations().getByName(JavaPlugin.COMPILE_CLASSPATH_CONFIGURATION_NAME),
+                                ConjurePlugin.CONJURE_JAVA_LIB_DEP))));
+        outputFile.set(getProject().getLayout().getBuildDirectory().file("checkConjureJavaVersions/versions.txt"));
+    }
+
+    /** The resolved version of conjure-java which will generate code. */
+    @Input
+    public final Property<String> getConjureJavaVersion() {
+        return conjureJavaVersion;
+    }
+
+    /** The resolved version of conjure-lib, keyed by the path of each project that compiles generated code. */
+    @Input
+    public final Provider<Map<String, String>> getConjureLibVersions() {
+        return conjureLibVersions;
+    }
+
+    /** Records the versions which were last checked, so that this task is up-to-date if none of them change. */
+    @OutputFile
+    public final RegularFileProperty getOutputFile() {
+        return outputFile;
     }
 
     @TaskAction
-    public final void run() {
+    public final void run() throws IOException {
         // 1. Figure out what version of conjure-java we resolved
-        VersionNumber conjureJavaVersion =
-                findResolvedVersionOf(getProject(), ConjurePlugin.CONJURE_JAVA, ConjurePlugin.CONJURE_JAVA_BINARY);
+        VersionNumber conjureJavaVersionNumber = VersionNumber.parse(conjureJavaVersion.get());
 
-        // 2. Ensure in each subproject, the version of conjure-lib in `compile` is the same.
-        ConjurePlugin.JAVA_PROJECT_SUFFIXES.stream()
-                .map(suffix -> getProject().findProject(getProject().getName() + suffix))
-                .filter(Objects::nonNull)
-                .forEach(subproj -> {
-                    VersionNumber conjureJavaLibVersion = findResolvedVersionOf(
-                            subproj,
-                            JavaPlugin.COMPILE_CLASSPATH_CONFIGURATION_NAME,
-                            ConjurePlugin.CONJURE_JAVA_LIB_DEP);
-                    boolean compatible = conjureJavaLibVersion.compareTo(conjureJavaVersion) >= 0;
+        // 2. Ensure in each subproject, the version of conjure-lib in `compile` is at least as new.
+        StringBuilder checkedVersions = new StringBuilder()
+                .append(ConjurePlugin.CONJURE_JAVA_BINARY)
+                .append('=')
+                .append(conjureJavaVersion.get())
+                .append('\n');
+        conjureLibVersions.get().entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    VersionNumber conjureJavaLibVersion = VersionNumber.parse(entry.getValue());
+                    boolean compatible = conjureJavaLibVersion.compareTo(conjureJavaVersionNumber) >= 0;
                     Preconditions.checkState(
                             compatible,
                             "conjure-lib should be at least as new as the generator:\n" + "%s -> %s\n%s -> %s",
                             ConjurePlugin.CONJURE_JAVA_BINARY,
-                            conjureJavaVersion,
+                            conjureJavaVersionNumber,
                             ConjurePlugin.CONJURE_JAVA_LIB_DEP,
                             conjureJavaLibVersion);
+                    checkedVersions.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
                 });
+
+        Path output = outputFile.getAsFile().get().toPath();
+        Files.createDirectories(output.getParent());
+        Files.write(output, checkedVersions.toString().getBytes(StandardCharsets.UTF_8));
     }
 
-    private static VersionNumber findResolvedVersionOf(Project project, String configuration, String moduleId) {
-        ResolutionResult conjureJavaResolutionResult = project.getConfigurations()
-                .getByName(configuration)
-                .getIncoming()
-                .getResolutionResult();
-        Optional<ResolvedComponentResult> component = conjureJavaResolutionResult.getAllComponents().stream()
-                .filter(c -> c.getModuleVersion() != null
-                        && moduleId.equals(c.getModuleVersion().getModule().toString()))
-                .collect(MoreCollectors.toOptional());
-        String version = component
-                .orElseThrow(
-                        () -> new RuntimeException(String.format("Expected to find %s in %s", moduleId, configuration)))
-                .getModuleVersion()
-                .getVersion();
-        return VersionNumber.parse(version);
+    /**
+     * Walks the resolved graph breadth-first from its root, so the common case where the module is a direct
+     * dependency never has to visit the rest of the components.
+     */
+    static String findResolvedVersionOf(Configuration configuration, String moduleId) {
+        ResolvedComponentResult root = configuration.getIncoming().getResolutionResult().getRoot();
+        Set<ResolvedComponentResult> visited = new HashSet<>();
+        Deque<ResolvedComponentResult> queue = new ArrayDeque<>();
+        queue.add(root);
+        visited.add(root);
+        while (!queue.isEmpty()) {
+            for (DependencyResult dependency : queue.poll().getDependencies()) {
+                if (!(dependency instanceof ResolvedDependencyResult)) {
+                    continue;
+                }
+                ResolvedComponentResult selected = ((ResolvedDependencyResult) dependency).getSelected();
+                ModuleVersionIdentifier moduleVersion = selected.getModuleVersion();
+                if (moduleVersion != null && moduleId.equals(moduleVersion.getModule().toString())) {
+                    return moduleVersion.getVersion();
+                }
+                if (visited.add(selected)) {
+                    queue.add(selected);
+                }
+            }
+        }
+        throw new RuntimeException(String.format("Expected to find %s in %s", moduleId, configuration.getName()));
     }
 }
@@ -18,11 +18,19 @@ package com.palantir.gradle.conjure;
 
 import com.google.common.collect.ImmutableMap;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Supplier;
-import org.gradle.api.Action;
-import org.gradle.api.Task;
-import org.gradle.api.file.ConfigurableFileTree;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.gradle.api.tasks.CacheableTask;
 import org.gradle.api.tasks.Input;
 import org.gradle.api.tasks.InputFile;
@@ -44,16 +52,72 @@ public class CompileConjureTypeScriptTask extends ConjureGeneratorTask {
         this.productDependencyFile = productDependencyFile;
     }
 
-    public CompileConjureTypeScriptTask() {
-        doFirst(new Action<Task>() {
-            @Override
-            public void execute(Task task) {
-                ConfigurableFileTree fileTree =
-                        task.getProject().fileTree(CompileConjureTypeScriptTask.this.getOutputDirectory());
-                fileTree.exclude("node_modules/**/*");
-                fileTree.forEach(File::delete);
+    /** Generates into a staging directory, so that only changed files in the source directory are rewritten. */
+    @Override
+    protected final File outputDirectoryFor(File _file) {
+        return new File(getTemporaryDir(), "staging");
+    }
+
+    @Override
+    public final void compileFiles() {
+        super.compileFiles();
+        finishStep().get().run();
+    }
+
+    @Override
+    final Optional<ConjureGeneratorAction.FinishStep> finishStep() {
+        return Optional.of(new Reconcile(new File(getTemporaryDir(), "staging"), getOutputDirectory()));
+    }
+
+    /**
+     * Makes the target directory match the staging directory, rewriting only files whose contents differ and removing
+     * only stale files. Installed dependencies, and files compiled from TypeScript sources which are still generated,
+     * are left in place.
+     */
+    static void reconcile(Path staging, Path target) {
+        try {
+            Set<String> generated = new LinkedHashSet<>();
+            try (Stream<Path> paths = Files.walk(staging)) {
+                for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    String relativePath = staging.relativize(path).toString();
+                    generated.add(relativePath);
+                    Path destination = target.resolve(relativePath);
+                    if (!sameContents(path, destination)) {
+                        Files.createDirectories(destination.getParent());
+                        Files.copy(path, destination, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+            if (!Files.isDirectory(target)) {
+                return;
             }
-        });
+            try (Stream<Path> paths = Files.walk(target)) {
+                for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    String relativePath = target.relativize(path).toString();
+                    if (!generated.contains(relativePath) && !isRetained(relativePath, generated)) {
+                        Files.delete(path);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to copy generated TypeScript from " + staging + " to " + target, e);
+        }
+    }
+
+    private static boolean isRetained(String relativePath, Set<String> generated) {
+        if (relativePath.startsWith("node_modules" + File.separator)) {
+            return true;
+        }
+        Matcher matcher = CompileTypeScriptTask.EMITTED_FILE.matcher(relativePath);
+        return matcher.matches()
+                && (generated.contains(matcher.group(1) + ".ts") || generated.contains(matcher.group(1) + ".tsx"));
+    }
+
+    private static boolean sameContents(Path first, Path second) throws IOException {
+        return Files.isRegularFile(second)
+                && Files.size(first) == Files.size(second)
+                && com.google.common.io.Files.asByteSource(first.toFile())
+                        .contentEquals(com.google.common.io.Files.asByteSource(second.toFile()));
     }
 
     @Override
@@ -76,4 +140,21 @@ public class CompileConjureTypeScriptTask extends ConjureGeneratorTask {
     private String getProjectVersion() {
         return getProject().getVersion().toString();
     }
+
+    private static final class Reconcile implements ConjureGeneratorAction.FinishStep {
+        private static final long serialVersionUID = 1L;
+
+        private final File staging;
+        private final File target;
+
+        Reconcile(File staging, File target) {
+            this.staging = staging;
+            this.target = target;
+        }
+
+        @Override
+        public void run() {
+            reconcile(staging.toPath(), target.toPath());
+        }
+    }
 }
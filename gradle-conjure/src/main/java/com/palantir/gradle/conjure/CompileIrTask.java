@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Supplier;
 import org.gradle.api.DefaultTask;
 import org.gradle.api.file.RegularFileProperty;
@@ -97,6 +98,10 @@ public class CompileIrTask extends DefaultTask {
 
     @TaskAction
     public final void generate() {
+        long start = System.nanoTime();
+        // Fail fast with the location of simple mistakes, rather than after starting the compiler
+        ConjureDefinitionValidator.validate(inputDirectory.get());
+
         List<String> args = ImmutableList.of(
                 new File(executableDir.get(), EXECUTABLE).getAbsolutePath(),
                 "compile",
@@ -106,6 +111,10 @@ public class CompileIrTask extends DefaultTask {
                 getSerializedExtensions());
 
         GradleExecUtils.exec(getProject(), "generate conjure IR", Collections.emptyList(), args);
+        ConjureReports.write(
+                this,
+                ImmutableList.of(
+                        ConjureReports.measure(outputIrFile.get().getAsFile(), Optional.empty(), start)));
     }
 
     private String getSerializedExtensions() {
@@ -0,0 +1,143 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Runs the {@code build} script of a generated TypeScript package, emitting JavaScript and declaration files into
+ * {@link #getOutputDirectory()} rather than next to the sources so that the outputs can be cached. Where the installed
+ * TypeScript compiler supports it, compilation is incremental: its build info is kept with the outputs.
+ */
+@CacheableTask
+public class CompileTypeScriptTask extends DefaultTask {
+    /** The build info written by {@code tsc --incremental}, which is not part of the compiled package. */
+    static final String BUILD_INFO_FILE = "tsconfig.tsbuildinfo";
+
+    /** Files emitted by {@code tsc}, where the first group is the path of the source without its extension. */
+    static final Pattern EMITTED_FILE = Pattern.compile("(.*?)(\\.d\\.ts|\\.js|\\.jsx)(\\.map)?");
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private Supplier<File> srcDirectory;
+    private Supplier<File> outputDirectory;
+
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public final FileCollection getSource() {
+        return getProject().fileTree(srcDirectory.get(), tree -> {
+            tree.include("**/*.ts", "**/*.tsx", "package.json", "tsconfig.json");
+            // Declaration files in the source directory are copies of earlier outputs
+            tree.exclude("node_modules/**", "**/*.d.ts");
+        });
+    }
+
+    /**
+     * The version of the installed TypeScript compiler, which is not otherwise part of the inputs as
+     * {@code node_modules} is not, or empty if it isn't installed.
+     */
+    @Input
+    public final String getTypeScriptVersion() {
+        File typescriptPackageJson = new File(srcDirectory.get(), "node_modules/typescript/package.json");
+        if (!typescriptPackageJson.isFile()) {
+            return "";
+        }
+        try {
+            return OBJECT_MAPPER.readTree(typescriptPackageJson).path("version").asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the TypeScript version from " + typescriptPackageJson, e);
+        }
+    }
+
+    @OutputDirectory
+    public final File getOutputDirectory() {
+        return outputDirectory.get();
+    }
+
+    final void setSrcDirectory(Supplier<File> srcDirectory) {
+        this.srcDirectory = srcDirectory;
+    }
+
+    final void setOutputDirectory(Supplier<File> outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    @TaskAction
+    public final void compileTypeScript() {
+        deleteStaleOutputs();
+        ImmutableList.Builder<String> args = ImmutableList.<String>builder()
+                .add("--outDir", getOutputDirectory().getAbsolutePath());
+        if (supportsIncremental(getTypeScriptVersion())) {
+            args.add("--incremental", "--tsBuildInfoFile")
+                    .add(new File(getOutputDirectory(), BUILD_INFO_FILE).getAbsolutePath());
+        }
+        GradleExecUtils.exec(
+                getProject(),
+                "compile TypeScript",
+                srcDirectory.get(),
+                ImmutableList.of(OsUtils.NPM_COMMAND_NAME, "run-script", "build", "--"),
+                args.build());
+    }
+
+    /** Removes files emitted for sources which have since been deleted, which {@code tsc} leaves behind. */
+    private void deleteStaleOutputs() {
+        getProject().fileTree(getOutputDirectory()).visit(details -> {
+            String path = details.getRelativePath().getPathString();
+            Matcher matcher = EMITTED_FILE.matcher(path);
+            if (!details.isDirectory()
+                    && matcher.matches()
+                    && !new File(srcDirectory.get(), matcher.group(1) + ".ts").exists()
+                    && !new File(srcDirectory.get(), matcher.group(1) + ".tsx").exists()) {
+                details.getFile().delete();
+            }
+        });
+    }
+
+    /** Incremental compilation was added in TypeScript 3.4. */
+    private boolean supportsIncremental(String version) {
+        if (version.isEmpty()) {
+            return false;
+        }
+        try {
+            List<Integer> parts = ImmutableList.copyOf(version.split("\\.")).stream()
+                    .limit(2)
+                    .map(Integer::parseInt)
+                    .collect(ImmutableList.toImmutableList());
+            return parts.get(0) > 3 || (parts.get(0) == 3 && parts.get(1) >= 4);
+        } catch (RuntimeException e) {
+            getLogger().info("Unable to parse the TypeScript version '{}'", version, e);
+            return false;
+        }
+    }
+}
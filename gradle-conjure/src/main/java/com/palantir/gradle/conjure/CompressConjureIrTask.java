@@ -0,0 +1,64 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/** Writes a gzipped copy of the IR, which is published next to the plain IR. */
+@CacheableTask
+public class CompressConjureIrTask extends DefaultTask {
+    /** Gradle property which additionally publishes the IR gzipped, as a {@value #EXTENSION} artifact. */
+    static final String PUBLISH_PROPERTY = "com.palantir.conjure.publishCompressedIr";
+    static final String EXTENSION = "conjure.json.gz";
+
+    private Supplier<File> irFile;
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final File getIrFile() {
+        return irFile.get();
+    }
+
+    final void setIrFile(Supplier<File> irFile) {
+        this.irFile = irFile;
+    }
+
+    @OutputFile
+    public final File getOutputFile() {
+        return new File(getProject().getBuildDir(), "conjure-ir-compressed/" + getIrFile().getName() + ".gz");
+    }
+
+    @TaskAction
+    public final void compress() throws IOException {
+        // GZIPOutputStream leaves the timestamp in the header empty, so the same IR always compresses the same
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(getOutputFile().toPath()))) {
+            Files.copy(getIrFile().toPath(), output);
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Action;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.artifacts.DependencyResolutionListener;
+import org.gradle.api.artifacts.ResolvableDependencies;
+import org.gradle.api.execution.TaskExecutionListener;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+import org.gradle.api.tasks.TaskState;
+import org.immutables.value.Value;
+
+/**
+ * Records when each Conjure task in the build went through its phases and what its outcome was, and writes a summary
+ * to {@code build/reports/conjure-metrics.json} of the root project at the end of the build. There is one instance per
+ * build, shared by all projects applying one of the Conjure plugins.
+ *
+ * <p>A task's snapshot phase spans from the start of the task to its first action, and so includes resolving its
+ * inputs; its output sync phase spans from the end of its last action until the task completed. All timestamps come
+ * from {@link System#nanoTime()}.
+ *
+ * <p>Tasks of the same project can run at the same time, so running tasks are tracked by their path. Process launches
+ * and dependency resolution are attributed to the task running on the thread they happen on.
+ */
+final class ConjureBuildMetrics extends BuildAdapter implements TaskExecutionListener, DependencyResolutionListener {
+    private static final String EXTRA_PROPERTY = "conjureBuildMetrics";
+
+    private final Project rootProject;
+    private final Map<String, TaskTimings> runningByTask = new ConcurrentHashMap<>();
+    private final ThreadLocal<TaskTimings> runningOnThread = new ThreadLocal<>();
+    private final Map<String, Long> resolutionStarts = new ConcurrentHashMap<>();
+    private final List<TaskMetrics> completed = new CopyOnWriteArrayList<>();
+
+    private ConjureBuildMetrics(Project rootProject) {
+        this.rootProject = rootProject;
+    }
+
+    /** Registers the metrics listener for this build, unless another Conjure project already did. */
+    static void register(Project project) {
+        ExtraPropertiesExtension extra = project.getRootProject().getExtensions().getExtraProperties();
+        if (extra.has(EXTRA_PROPERTY)) {
+            return;
+        }
+        ConjureBuildMetrics metrics = new ConjureBuildMetrics(project.getRootProject());
+        extra.set(EXTRA_PROPERTY, metrics);
+        project.getGradle().addListener(metrics);
+        project.getGradle().allprojects(proj -> proj.getTasks().configureEach(task -> {
+            if (isConjureTask(task)) {
+                task.doFirst(new Action<Task>() {
+                    @Override
+                    public void execute(Task startedTask) {
+                        metrics.timings(startedTask)
+                                .ifPresent(timings -> timings.actionsStarted.set(System.nanoTime()));
+                    }
+                });
+                task.doLast(new Action<Task>() {
+                    @Override
+                    public void execute(Task finishedTask) {
+                        metrics.timings(finishedTask)
+                                .ifPresent(timings -> timings.actionsFinished.set(System.nanoTime()));
+                    }
+                });
+            }
+        }));
+    }
+
+    /** Records the time spent running an external process for the Conjure task running on the current thread. */
+    static void recordExec(Project project, long startNanos) {
+        recordExecs(project, 1, System.nanoTime() - startNanos);
+    }
+
+    /** Records processes which other threads ran for the Conjure task running on the current thread. */
+    static void recordExecs(Project project, int processLaunches, long execNanos) {
+        find(project)
+                .flatMap(metrics -> Optional.ofNullable(metrics.runningOnThread.get()))
+                .ifPresent(timings -> {
+                    timings.execNanos.addAndGet(execNanos);
+                    timings.processLaunches.addAndGet(processLaunches);
+                });
+    }
+
+    private static Optional<ConjureBuildMetrics> find(Project project) {
+        ExtraPropertiesExtension extra = project.getRootProject().getExtensions().getExtraProperties();
+        Object metrics = extra.has(EXTRA_PROPERTY) ? extra.get(EXTRA_PROPERTY) : null;
+        // Plugins loaded by another classloader record into their own instance, or not at all
+        return metrics instanceof ConjureBuildMetrics ? Optional.of((ConjureBuildMetrics) metrics) : Optional.empty();
+    }
+
+    private static boolean isConjureTask(Task task) {
+        return task.getClass().getName().startsWith(ConjureBuildMetrics.class.getPackage().getName() + ".");
+    }
+
+    private Optional<TaskTimings> timings(Task task) {
+        TaskTimings timings = runningByTask.get(task.getPath());
+        return timings != null && timings.task == task ? Optional.of(timings) : Optional.empty();
+    }
+
+    @Override
+    public void beforeExecute(Task task) {
+        if (isConjureTask(task)) {
+            TaskTimings timings = new TaskTimings(task, System.nanoTime());
+            runningByTask.put(task.getPath(), timings);
+            runningOnThread.set(timings);
+        }
+    }
+
+    @Override
+    public void afterExecute(Task task, TaskState state) {
+        long finished = System.nanoTime();
+        Optional<TaskTimings> maybeTimings = timings(task);
+        if (runningOnThread.get() != null && runningOnThread.get().task == task) {
+            runningOnThread.remove();
+        }
+        if (!maybeTimings.isPresent()) {
+            return;
+        }
+        runningByTask.remove(task.getPath());
+
+        TaskTimings timings = maybeTimings.get();
+        long actionsStarted = timings.actionsStarted.get() > 0 ? timings.actionsStarted.get() : finished;
+        long actionsFinished = timings.actionsFinished.get() > 0 ? timings.actionsFinished.get() : finished;
+        completed.add(ImmutableTaskMetrics.builder()
+                .task(task.getPath())
+                .type(task.getClass().getSimpleName().replace("_Decorated", ""))
+                .outcome(outcomeOf(state))
+                .totalMillis(millis(finished - timings.started))
+                .snapshotMillis(millis(actionsStarted - timings.started))
+                .resolveMillis(millis(timings.resolveNanos.get()))
+                .actionsMillis(millis(actionsFinished - actionsStarted))
+                .execMillis(millis(timings.execNanos.get()))
+                .processLaunches(timings.processLaunches.get())
+                .outputSyncMillis(millis(finished - actionsFinished))
+                .build());
+    }
+
+    @Override
+    public void beforeResolve(ResolvableDependencies dependencies) {
+        resolutionStarts.put(dependencies.getPath(), System.nanoTime());
+    }
+
+    @Override
+    public void afterResolve(ResolvableDependencies dependencies) {
+        Long started = resolutionStarts.remove(dependencies.getPath());
+        TaskTimings timings = runningOnThread.get();
+        if (started != null && timings != null) {
+            timings.resolveNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    @Override
+    public void buildFinished(BuildResult _result) {
+        if (completed.isEmpty()) {
+            return;
+        }
+
+        Map<String, Integer> outcomes = new TreeMap<>();
+        completed.forEach(task -> outcomes.merge(task.outcome(), 1, Integer::sum));
+        int executed = outcomes.getOrDefault(Outcome.EXECUTED, 0) + outcomes.getOrDefault(Outcome.FAILED, 0);
+        int fromCache = outcomes.getOrDefault(Outcome.FROM_CACHE, 0);
+        int upToDate = outcomes.getOrDefault(Outcome.UP_TO_DATE, 0);
+        long execMillis = completed.stream().mapToLong(TaskMetrics::execMillis).sum();
+
+        BuildMetrics summary = ImmutableBuildMetrics.builder()
+                .outcomes(outcomes)
+                .cacheHitRate(fromCache + executed == 0 ? 0 : (double) fromCache / (fromCache + executed))
+                .upToDateRate((double) upToDate / completed.size())
+                .processLaunches(completed.stream().mapToInt(TaskMetrics::processLaunches).sum())
+                .processMillis(execMillis)
+                .inProcessMillis(completed.stream().mapToLong(TaskMetrics::actionsMillis).sum() - execMillis)
+                .snapshotMillis(completed.stream().mapToLong(TaskMetrics::snapshotMillis).sum())
+                .resolveMillis(completed.stream().mapToLong(TaskMetrics::resolveMillis).sum())
+                .outputSyncMillis(completed.stream().mapToLong(TaskMetrics::outputSyncMillis).sum())
+                .tasks(completed)
+                .build();
+
+        File metricsFile = new File(rootProject.getBuildDir(), "reports/conjure-metrics.json");
+        try {
+            Files.createDirectories(metricsFile.getParentFile().toPath());
+            ConjureReports.OBJECT_MAPPER.writeValue(metricsFile, summary);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write conjure build metrics " + metricsFile, e);
+        }
+    }
+
+    private static String outcomeOf(TaskState state) {
+        if (state.getFailure() != null) {
+            return Outcome.FAILED;
+        }
+        if (!state.getSkipped()) {
+            return Outcome.EXECUTED;
+        }
+        String skipMessage = String.valueOf(state.getSkipMessage());
+        switch (skipMessage) {
+            case "UP-TO-DATE":
+                return Outcome.UP_TO_DATE;
+            case "FROM-CACHE":
+                return Outcome.FROM_CACHE;
+            case "NO-SOURCE":
+                return Outcome.NO_SOURCE;
+            default:
+                return Outcome.SKIPPED;
+        }
+    }
+
+    private static long millis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static final class Outcome {
+        static final String EXECUTED = "executed";
+        static final String FAILED = "failed";
+        static final String UP_TO_DATE = "up-to-date";
+        static final String FROM_CACHE = "from-cache";
+        static final String NO_SOURCE = "no-source";
+        static final String SKIPPED = "skipped";
+
+        private Outcome() {}
+    }
+
+    private static final class TaskTimings {
+        private final Task task;
+        private final long started;
+        private final AtomicLong actionsStarted = new AtomicLong();
+        private final AtomicLong actionsFinished = new AtomicLong();
+        private final AtomicLong resolveNanos = new AtomicLong();
+        private final AtomicLong execNanos = new AtomicLong();
+        private final AtomicInteger processLaunches = new AtomicInteger();
+
+        TaskTimings(Task task, long started) {
+            this.task = task;
+            this.started = started;
+        }
+    }
+
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableTaskMetrics.class)
+    @JsonSerialize(as = ImmutableTaskMetrics.class)
+    interface TaskMetrics {
+        String task();
+
+        String type();
+
+        String outcome();
+
+        long totalMillis();
+
+        long snapshotMillis();
+
+        long resolveMillis();
+
+        long actionsMillis();
+
+        /** Time spent in external generator processes, including their startup. */
+        long execMillis();
+
+        int processLaunches();
+
+        long outputSyncMillis();
+    }
+
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableBuildMetrics.class)
+    @JsonSerialize(as = ImmutableBuildMetrics.class)
+    interface BuildMetrics {
+        Map<String, Integer> outcomes();
+
+        /** The share of tasks which had to do work that were restored from the build cache instead. */
+        double cacheHitRate();
+
+        double upToDateRate();
+
+        int processLaunches();
+
+        /** Time spent in external processes, such as the conjure compiler and generators, including their startup. */
+        long processMillis();
+
+        /** Time spent in task actions other than external processes. */
+        long inProcessMillis();
+
+        long snapshotMillis();
+
+        long resolveMillis();
+
+        long outputSyncMillis();
+
+        List<TaskMetrics> tasks();
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.api.GradleException;
+import org.immutables.value.Value;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+
+/**
+ * Checks conjure definitions for syntax errors, unknown keys and references to undefined types without starting the
+ * conjure compiler, so that common mistakes are reported with their exact location.
+ *
+ * <p>The checks are deliberately conservative: anything not understood here is left for the compiler to report.
+ */
+final class ConjureDefinitionValidator {
+    private static final int MAX_CACHED_DEFINITIONS = 10_000;
+    /** Problems only depend on the contents of a definition, so are shared by all builds in this daemon. */
+    private static final ConcurrentMap<HashCode, List<Problem>> PROBLEMS_BY_CONTENT = new ConcurrentHashMap<>();
+
+    private static final ImmutableSet<String> TOP_LEVEL_KEYS = ImmutableSet.of("types", "services");
+    private static final ImmutableSet<String> TYPES_KEYS = ImmutableSet.of("conjure-imports", "imports", "definitions");
+    private static final ImmutableSet<String> DEFINITIONS_KEYS =
+            ImmutableSet.of("default-package", "objects", "errors");
+    private static final ImmutableSet<String> PRIMITIVES = ImmutableSet.of(
+            "any", "bearertoken", "binary", "boolean", "datetime", "double", "integer", "rid", "safelong", "string",
+            "uuid");
+    private static final Pattern SINGLE_CONTAINER = Pattern.compile("(?i)(?:optional|list|set)<(.+)>");
+    private static final Pattern MAP_CONTAINER = Pattern.compile("(?i)map<(.+)>");
+    private static final Pattern LOCAL_REFERENCE = Pattern.compile("[A-Za-z][A-Za-z0-9]*");
+
+    private ConjureDefinitionValidator() {}
+
+    /**
+     * Checks the definitions in the given directory in parallel, failing with the location of every problem found
+     * relative to that directory.
+     */
+    static void validate(File directory) {
+        List<Path> definitions;
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            definitions = paths.filter(path -> path.toString().endsWith(".yml") && Files.isRegularFile(path))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list conjure definitions in " + directory, e);
+        }
+
+        List<String> problems = definitions.parallelStream()
+                .flatMap(path -> check(read(path)).stream()
+                        .map(problem -> String.format(
+                                "%s:%d: %s",
+                                directory.toPath().relativize(path),
+                                problem.line(),
+                                problem.message())))
+                .sorted()
+                .collect(Collectors.toList());
+        if (!problems.isEmpty()) {
+            throw new GradleException("Found problems in conjure definitions:\n" + String.join("\n", problems));
+        }
+    }
+
+    static List<Problem> check(byte[] contents) {
+        HashCode hash = Hashing.sha256().hashBytes(contents);
+        List<Problem> cached = PROBLEMS_BY_CONTENT.get(hash);
+        if (cached != null) {
+            return cached;
+        }
+        List<Problem> problems = ImmutableList.sortedCopyOf(Comparator.comparingInt(Problem::line), parse(contents));
+        if (PROBLEMS_BY_CONTENT.size() >= MAX_CACHED_DEFINITIONS) {
+            PROBLEMS_BY_CONTENT.clear();
+        }
+        PROBLEMS_BY_CONTENT.put(hash, problems);
+        return problems;
+    }
+
+    private static List<Problem> parse(byte[] contents) {
+        Node root;
+        try {
+            root = new Yaml(new SafeConstructor())
+                    .compose(new InputStreamReader(new ByteArrayInputStream(contents), StandardCharsets.UTF_8));
+        } catch (MarkedYAMLException e) {
+            int line = Optional.ofNullable(e.getProblemMark()).map(Mark::getLine).orElse(0) + 1;
+            return ImmutableList.of(Problem.of(line, "Invalid YAML: " + e.getProblem()));
+        } catch (YAMLException e) {
+            return ImmutableList.of(Problem.of(1, "Invalid YAML: " + e.getMessage()));
+        }
+
+        List<Problem> problems = new ArrayList<>();
+        if (root != null) {
+            new Checker(problems).checkDefinition(root);
+        }
+        return problems;
+    }
+
+    private static byte[] read(Path path) {
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read conjure definition " + path, e);
+        }
+    }
+
+    private static final class Checker {
+        private final List<Problem> problems;
+        private final Set<String> localTypes = new HashSet<>();
+
+        Checker(List<Problem> problems) {
+            this.problems = problems;
+        }
+
+        void checkDefinition(Node root) {
+            Optional<MappingNode> definition = mapping(root, "a conjure definition");
+            definition.ifPresent(node -> checkKeys(node, TOP_LEVEL_KEYS));
+
+            Optional<MappingNode> types = definition.flatMap(node -> child(node, "types"));
+            types.ifPresent(node -> checkKeys(node, TYPES_KEYS));
+            Optional<MappingNode> imports = types.flatMap(node -> child(node, "imports"));
+            Optional<MappingNode> definitions = types.flatMap(node -> child(node, "definitions"));
+            definitions.ifPresent(node -> checkKeys(node, DEFINITIONS_KEYS));
+            Optional<MappingNode> objects = definitions.flatMap(node -> child(node, "objects"));
+
+            imports.ifPresent(node -> localTypes.addAll(keys(node)));
+            objects.ifPresent(node -> localTypes.addAll(keys(node)));
+
+            objects.ifPresent(node -> node.getValue().forEach(object -> mapping(object.getValueNode(), "a type")
+                    .ifPresent(this::checkObject)));
+            definitions.flatMap(node -> child(node, "errors")).ifPresent(node -> node.getValue()
+                    .forEach(error -> mapping(error.getValueNode(), "an error").ifPresent(errorNode -> {
+                        child(errorNode, "safe-args").ifPresent(this::checkFields);
+                        child(errorNode, "unsafe-args").ifPresent(this::checkFields);
+                    })));
+            definition.flatMap(node -> child(node, "services")).ifPresent(node -> node.getValue()
+                    .forEach(service -> mapping(service.getValueNode(), "a service").ifPresent(this::checkService)));
+        }
+
+        private void checkObject(MappingNode object) {
+            child(object, "fields").ifPresent(this::checkFields);
+            child(object, "union").ifPresent(this::checkFields);
+            value(object, "alias").ifPresent(this::checkType);
+        }
+
+        private void checkService(MappingNode service) {
+            child(service, "endpoints").ifPresent(endpoints -> endpoints.getValue()
+                    .forEach(endpoint -> mapping(endpoint.getValueNode(), "an endpoint").ifPresent(endpointNode -> {
+                        child(endpointNode, "args").ifPresent(this::checkFields);
+                        value(endpointNode, "returns").ifPresent(this::checkType);
+                    })));
+        }
+
+        /** Fields, union members and arguments are either a type, or a mapping with a type. */
+        private void checkFields(MappingNode fields) {
+            for (NodeTuple field : fields.getValue()) {
+                Node value = field.getValueNode();
+                if (value instanceof ScalarNode) {
+                    checkType((ScalarNode) value);
+                } else if (value instanceof MappingNode) {
+                    value((MappingNode) value, "type").ifPresent(this::checkType);
+                }
+            }
+        }
+
+        private void checkType(ScalarNode node) {
+            String undefined = undefinedType(node.getValue().trim());
+            if (undefined != null) {
+                problems.add(Problem.of(line(node), String.format("Unknown type '%s'", undefined)));
+            }
+        }
+
+        /** Returns the first reference to an undefined local type in the given type expression, if any. */
+        private String undefinedType(String type) {
+            Matcher single = SINGLE_CONTAINER.matcher(type);
+            if (single.matches()) {
+                return undefinedType(single.group(1).trim());
+            }
+            Matcher map = MAP_CONTAINER.matcher(type);
+            if (map.matches()) {
+                int comma = topLevelComma(map.group(1));
+                if (comma < 0) {
+                    return null;
+                }
+                String undefinedKey = undefinedType(map.group(1).substring(0, comma).trim());
+                return undefinedKey != null ? undefinedKey : undefinedType(map.group(1).substring(comma + 1).trim());
+            }
+            // Anything else, including references to conjure-imports like 'namespace.Type', is left to the compiler
+            if (!LOCAL_REFERENCE.matcher(type).matches()
+                    || PRIMITIVES.contains(type.toLowerCase(Locale.ROOT))
+                    || localTypes.contains(type)) {
+                return null;
+            }
+            return type;
+        }
+
+        private static int topLevelComma(String types) {
+            int depth = 0;
+            for (int i = 0; i < types.length(); i++) {
+                char character = types.charAt(i);
+                if (character == '<') {
+                    depth++;
+                } else if (character == '>') {
+                    depth--;
+                } else if (character == ',' && depth == 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private void checkKeys(MappingNode node, Set<String> allowed) {
+            Set<String> seen = new HashSet<>();
+            for (NodeTuple tuple : node.getValue()) {
+                if (!(tuple.getKeyNode() instanceof ScalarNode)) {
+                    continue;
+                }
+                String key = ((ScalarNode) tuple.getKeyNode()).getValue();
+                if (!allowed.contains(key)) {
+                    problems.add(Problem.of(
+                            line(tuple.getKeyNode()),
+                            String.format("Unknown key '%s', expected one of %s", key, allowed)));
+                } else if (!seen.add(key)) {
+                    problems.add(Problem.of(line(tuple.getKeyNode()), String.format("Duplicate key '%s'", key)));
+                }
+            }
+        }
+
+        private Optional<MappingNode> child(MappingNode node, String key) {
+            return find(node, key).flatMap(child -> mapping(child, String.format("'%s'", key)));
+        }
+
+        private Optional<MappingNode> mapping(Node node, String description) {
+            if (node instanceof MappingNode) {
+                return Optional.of((MappingNode) node);
+            }
+            if (!Tag.NULL.equals(node.getTag())) {
+                problems.add(Problem.of(line(node), String.format("Expected %s to be a mapping", description)));
+            }
+            return Optional.empty();
+        }
+
+        private static Optional<ScalarNode> value(MappingNode node, String key) {
+            return find(node, key).filter(ScalarNode.class::isInstance).map(ScalarNode.class::cast);
+        }
+
+        private static Optional<Node> find(MappingNode node, String key) {
+            return node.getValue().stream()
+                    .filter(tuple -> tuple.getKeyNode() instanceof ScalarNode
+                            && key.equals(((ScalarNode) tuple.getKeyNode()).getValue()))
+                    .map(NodeTuple::getValueNode)
+                    .findFirst();
+        }
+
+        private static List<String> keys(MappingNode node) {
+            return node.getValue().stream()
+                    .map(NodeTuple::getKeyNode)
+                    .filter(ScalarNode.class::isInstance)
+                    .map(key -> ((ScalarNode) key).getValue())
+                    .collect(Collectors.toList());
+        }
+
+        private static int line(Node node) {
+            return node.getStartMark().getLine() + 1;
+        }
+    }
+
+    @Value.Immutable
+    interface Problem {
+        @Value.Parameter
+        int line();
+
+        @Value.Parameter
+        String message();
+
+        static Problem of(int line, String message) {
+            return ImmutableProblem.of(line, message);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.Serializable;
+import java.util.List;
+import java.util.Optional;
+import javax.inject.Inject;
+import org.gradle.util.GFileUtils;
+
+/**
+ * Runs the generator of a {@link ConjureGeneratorTask} through the Worker API, so that the task's action completes
+ * straight away and Gradle can start the other generator tasks of the same project while this one runs.
+ */
+public class ConjureGeneratorAction implements Runnable {
+    private final Work work;
+
+    @Inject
+    public ConjureGeneratorAction(Work work) {
+        this.work = work;
+    }
+
+    @Override
+    public final void run() {
+        ImmutableList.Builder<ConjureReports.DefinitionReport> reports = ImmutableList.builder();
+        for (Invocation invocation : work.invocations) {
+            reports.add(invocation.run(Optional.empty()));
+        }
+        if (work.finishStep != null) {
+            work.finishStep.run();
+        }
+        ConjureReports.write(work.reportFile, work.taskPath, reports.build());
+    }
+
+    /** Everything a worker needs to know to generate code for a task, which can't be accessed from the worker. */
+    static final class Work implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String taskPath;
+        private final File reportFile;
+        private final List<Invocation> invocations;
+        // Null if there is nothing to do, as Optional is not serializable
+        private final FinishStep finishStep;
+
+        Work(String taskPath, File reportFile, List<Invocation> invocations, Optional<FinishStep> finishStep) {
+            this.taskPath = taskPath;
+            this.reportFile = reportFile;
+            this.invocations = ImmutableList.copyOf(invocations);
+            this.finishStep = finishStep.orElse(null);
+        }
+    }
+
+    /** A single run of the generator, for one IR file. */
+    static final class Invocation implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final File irFile;
+        private final File outputDirectory;
+        // The project directory, which is where the generator runs when forked from the project
+        private final File workingDirectory;
+        private final List<String> command;
+        private final List<String> args;
+
+        Invocation(
+                File irFile, File outputDirectory, File workingDirectory, List<String> command, List<String> args) {
+            this.irFile = irFile;
+            this.outputDirectory = outputDirectory;
+            this.workingDirectory = workingDirectory;
+            this.command = ImmutableList.copyOf(command);
+            this.args = ImmutableList.copyOf(args);
+        }
+
+        /**
+         * Runs the generator, replacing anything previously generated for this IR file. This never accesses the
+         * project, so it can run on any thread.
+         */
+        ConjureReports.DefinitionReport run(Optional<NodeGeneratorPool> generatorServers) {
+            long start = System.nanoTime();
+            GFileUtils.deleteDirectory(outputDirectory);
+            GFileUtils.mkdirs(outputDirectory);
+            if (generatorServers.isPresent()) {
+                generatorServers.get().execWithoutProject("run generator", workingDirectory, command, args);
+            } else {
+                GradleExecUtils.execWithoutProject("run generator", workingDirectory, command, args);
+            }
+            return ConjureReports.measure(irFile, Optional.of(outputDirectory), start);
+        }
+    }
+
+    /** Work to do once the generator ran for every IR file, such as moving the generated files into place. */
+    interface FinishStep extends Serializable {
+        void run();
+    }
+}
@@ -22,7 +22,11 @@ import com.palantir.gradle.conjure.api.GeneratorOptions;
 import java.io.File;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.inject.Inject;
 import org.gradle.api.Action;
 import org.gradle.api.Task;
 import org.gradle.api.file.FileTree;
@@ -34,12 +38,19 @@ import org.gradle.api.tasks.PathSensitive;
 import org.gradle.api.tasks.PathSensitivity;
 import org.gradle.api.tasks.SourceTask;
 import org.gradle.util.GFileUtils;
+import org.gradle.workers.IsolationMode;
+import org.gradle.workers.WorkerExecutor;
 
 @CacheableTask
 public class ConjureGeneratorTask extends SourceTask {
+    /** Gradle property which runs generators through the Worker API, so the generator tasks of a project overlap. */
+    static final String WORKERS_PROPERTY = "com.palantir.conjure.generatorWorkers";
+
     private Supplier<File> executablePathSupplier;
     private File outputDirectory;
     private Supplier<GeneratorOptions> options;
+    private boolean useGeneratorServer;
+    private final List<ConjureReports.DefinitionReport> definitionReports = new CopyOnWriteArrayList<>();
 
     public ConjureGeneratorTask() {
         // @TaskAction uses doFirst I think, because other actions prepended using doFirst end up happening AFTER the
@@ -47,7 +58,11 @@ public class ConjureGeneratorTask extends SourceTask {
         doLast(new Action<Task>() {
             @Override
             public void execute(Task _task) {
-                compileFiles();
+                if (supportsWorkers() && ConjurePlugin.isPropertyEnabled(getProject(), WORKERS_PROPERTY)) {
+                    submitGeneration();
+                } else {
+                    generate();
+                }
             }
         });
     }
@@ -78,6 +93,11 @@ public class ConjureGeneratorTask extends SourceTask {
         return OsUtils.appendDotBatIfWindows(executablePathSupplier.get());
     }
 
+    /** Runs the generator in a warm process from the {@link NodeGeneratorPool}, where possible. */
+    final void setUseGeneratorServer(boolean useGeneratorServer) {
+        this.useGeneratorServer = useGeneratorServer;
+    }
+
     public final void setOptions(Supplier<GeneratorOptions> options) {
         this.options = options;
     }
@@ -95,26 +115,101 @@ public class ConjureGeneratorTask extends SourceTask {
         return getOutputDirectory();
     }
 
+    @Inject
+    protected WorkerExecutor getWorkerExecutor() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Whether the generator can run in a worker, which only runs the generator for each source file. Tasks which
+     * override {@link #compileFiles()} to do more than that must return false.
+     */
+    boolean supportsWorkers() {
+        return true;
+    }
+
+    /** Work to do in the worker once the generator ran for every source file. */
+    Optional<ConjureGeneratorAction.FinishStep> finishStep() {
+        return Optional.empty();
+    }
+
+    /** Runs the same generator invocations as {@link #generate()}, but in a worker which this task doesn't wait for. */
+    // WorkerExecutor#noIsolation replaced submit in Gradle 5.6, but this plugin supports older versions
+    @SuppressWarnings("deprecation")
+    private void submitGeneration() {
+        List<ConjureGeneratorAction.Invocation> invocations =
+                getSource().getFiles().stream().map(this::invocationFor).collect(Collectors.toList());
+        ConjureGeneratorAction.Work work = new ConjureGeneratorAction.Work(
+                getPath(), ConjureReports.reportFile(this), invocations, finishStep());
+        getWorkerExecutor().submit(ConjureGeneratorAction.class, config -> {
+            config.setIsolationMode(IsolationMode.NONE);
+            config.setDisplayName("Generating " + getPath());
+            config.params(work);
+        });
+    }
+
+    /** Runs {@link #compileFiles()} and writes a {@link ConjureReports report} of what it generated. */
+    final void generate() {
+        definitionReports.clear();
+        compileFiles();
+        ConjureReports.write(this, definitionReports);
+    }
+
     /** Entry point for the task. */
     public void compileFiles() {
-        getSource().getFiles().forEach(file -> {
-            File thisOutputDirectory = outputDirectoryFor(file);
+        getSource().getFiles().forEach(this::compileFile);
+    }
 
-            GFileUtils.deleteDirectory(thisOutputDirectory);
-            getProject().mkdir(thisOutputDirectory);
+    /** Runs the generator for a single input file, replacing anything previously generated for it. */
+    final void compileFile(File file) {
+        long start = System.nanoTime();
+        File thisOutputDirectory = outputDirectoryFor(file);
 
-            List<String> generateCommand = ImmutableList.of(
-                    getExecutablePath().getAbsolutePath(),
-                    "generate",
-                    file.getAbsolutePath(),
-                    thisOutputDirectory.getAbsolutePath());
+        GFileUtils.deleteDirectory(thisOutputDirectory);
+        getProject().mkdir(thisOutputDirectory);
 
+        if (useGeneratorServer) {
+            NodeGeneratorPool.exec(
+                    getProject(), "run generator", generateCommand(file, thisOutputDirectory), generatorArgs(file));
+        } else {
             GradleExecUtils.exec(
-                    getProject(),
-                    "run generator",
-                    generateCommand,
-                    RenderGeneratorOptions.toArgs(getOptions(), requiredOptions(file)));
-        });
+                    getProject(), "run generator", generateCommand(file, thisOutputDirectory), generatorArgs(file));
+        }
+        definitionReports.add(ConjureReports.measure(file, Optional.of(thisOutputDirectory), start));
+    }
+
+    /** Everything needed to run the generator for a single input file without accessing the project. */
+    final ConjureGeneratorAction.Invocation invocationFor(File file) {
+        File thisOutputDirectory = outputDirectoryFor(file);
+        return new ConjureGeneratorAction.Invocation(
+                file,
+                thisOutputDirectory,
+                getProject().getProjectDir(),
+                generateCommand(file, thisOutputDirectory),
+                generatorArgs(file));
+    }
+
+    /** The warm generator servers to run {@link #invocationFor invocations} in, if this task uses them. */
+    final Optional<NodeGeneratorPool> generatorServers() {
+        return useGeneratorServer ? NodeGeneratorPool.find(getProject()) : Optional.empty();
+    }
+
+    /** Records what was generated for a definition outside of {@link #compileFile(File)}. */
+    final void addDefinitionReport(ConjureReports.DefinitionReport report) {
+        definitionReports.add(report);
+    }
+
+    private List<String> generateCommand(File file, File thisOutputDirectory) {
+        return ImmutableList.of(
+                getExecutablePath().getAbsolutePath(),
+                "generate",
+                file.getAbsolutePath(),
+                thisOutputDirectory.getAbsolutePath());
+    }
+
+    /** The rendered generator options for the given input file. */
+    final List<String> generatorArgs(File file) {
+        return RenderGeneratorOptions.toArgs(getOptions(), requiredOptions(file));
     }
 
     /**
@@ -0,0 +1,170 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.Hashing;
+import com.palantir.conjure.java.serialization.ObjectMappers;
+import com.palantir.gradle.dist.ProductDependency;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.immutables.value.Value;
+
+/**
+ * A small summary of a conjure IR, written by {@link WriteConjureIrDigestTask} and published alongside it, so that
+ * consumers can fingerprint a definition and read its product dependencies without parsing the whole IR.
+ */
+@Value.Immutable
+@JsonDeserialize(as = ImmutableConjureIrDigest.class)
+@JsonSerialize(as = ImmutableConjureIrDigest.class)
+interface ConjureIrDigest {
+    String CLASSIFIER = "digest";
+    ObjectMapper OBJECT_MAPPER = ObjectMappers.newClientObjectMapper();
+
+    /** The SHA-256 of the IR file itself. */
+    String irSha256();
+
+    /**
+     * The SHA-256 of the services, types and errors of the IR, ignoring documentation, extensions and the order in
+     * which they were declared. Definitions with the same API surface hash generate equivalent clients.
+     */
+    String apiHash();
+
+    /** The SHA-256 of each type and error definition, keyed by its qualified name. */
+    Map<String, String> typeHashes();
+
+    Set<ProductDependency> productDependencies();
+
+    static ConjureIrDigest of(File irFile) {
+        try {
+            byte[] bytes = Files.readAllBytes(irFile.toPath());
+            JsonNode ir = OBJECT_MAPPER.readTree(bytes);
+            ImmutableSortedMap.Builder<String, String> typeHashes = ImmutableSortedMap.naturalOrder();
+            for (JsonNode type : ir.path("types")) {
+                typeHashes.put(
+                        ConjureIrPruner.qualifiedName(type.path(type.path("type").asText()).path("typeName")),
+                        hash(type));
+            }
+            for (JsonNode error : ir.path("errors")) {
+                typeHashes.put(ConjureIrPruner.qualifiedName(error.path("errorName")), hash(error));
+            }
+            MinimalConjureDefinition definition = OBJECT_MAPPER.treeToValue(ir, MinimalConjureDefinition.class);
+            return ImmutableConjureIrDigest.builder()
+                    .irSha256(Hashing.sha256().hashBytes(bytes).toString())
+                    .apiHash(hash(apiSurface(ir)))
+                    .typeHashes(typeHashes.build())
+                    .productDependencies(definition
+                            .extensions()
+                            .map(MinimalConjureDefinition.Extensions::productDependencies)
+                            .orElseGet(Collections::emptySet))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to digest conjure definition " + irFile, e);
+        }
+    }
+
+    static ConjureIrDigest read(File digestFile) {
+        try {
+            return OBJECT_MAPPER.readValue(digestFile, ConjureIrDigest.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read conjure definition digest " + digestFile, e);
+        }
+    }
+
+    static void write(ConjureIrDigest digest, File digestFile) {
+        try {
+            OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(digestFile, digest);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write conjure definition digest " + digestFile, e);
+        }
+    }
+
+    /** The parts of the IR which affect generated code other than its documentation. */
+    static JsonNode apiSurface(JsonNode ir) {
+        ObjectNode surface = JsonNodeFactory.instance.objectNode();
+        surface.set("version", ir.path("version"));
+        surface.set("types", sortedBy(ir.path("types"), type -> ConjureIrPruner.qualifiedName(
+                type.path(type.path("type").asText()).path("typeName"))));
+        surface.set("errors", sortedBy(
+                ir.path("errors"), error -> ConjureIrPruner.qualifiedName(error.path("errorName"))));
+        surface.set("services", sortedBy(
+                ir.path("services"), service -> ConjureIrPruner.qualifiedName(service.path("serviceName"))));
+        return withoutDocs(surface);
+    }
+
+    static ArrayNode sortedBy(JsonNode definitions, Function<JsonNode, String> name) {
+        List<JsonNode> sorted = StreamSupport.stream(definitions.spliterator(), false)
+                .sorted(Comparator.comparing(name))
+                .collect(Collectors.toList());
+        return JsonNodeFactory.instance.arrayNode().addAll(sorted);
+    }
+
+    static JsonNode withoutDocs(JsonNode node) {
+        if (node.isObject()) {
+            ObjectNode copy = JsonNodeFactory.instance.objectNode();
+            node.fields().forEachRemaining(field -> {
+                if (!field.getKey().equals("docs")) {
+                    copy.set(field.getKey(), withoutDocs(field.getValue()));
+                }
+            });
+            return copy;
+        } else if (node.isArray()) {
+            ArrayNode copy = JsonNodeFactory.instance.arrayNode();
+            node.forEach(element -> copy.add(withoutDocs(element)));
+            return copy;
+        }
+        return node;
+    }
+
+    /** Hashes the given JSON with its object keys sorted, so that it doesn't depend on how the IR was formatted. */
+    static String hash(JsonNode node) {
+        return Hashing.sha256().hashString(canonical(node), StandardCharsets.UTF_8).toString();
+    }
+
+    static String canonical(JsonNode node) {
+        if (node.isObject()) {
+            return ImmutableList.copyOf(node.fieldNames()).stream()
+                    .sorted()
+                    .map(key -> JsonNodeFactory.instance.textNode(key) + ":" + canonical(node.get(key)))
+                    .collect(Collectors.joining(",", "{", "}"));
+        } else if (node.isArray()) {
+            return StreamSupport.stream(node.spliterator(), false)
+                    .map(ConjureIrDigest::canonical)
+                    .collect(Collectors.joining(",", "[", "]"));
+        }
+        return node.toString();
+    }
+}
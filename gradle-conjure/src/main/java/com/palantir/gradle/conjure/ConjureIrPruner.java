@@ -0,0 +1,183 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.palantir.gradle.conjure.api.GeneratorFilter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Prunes a Conjure IR down to what a {@link GeneratorFilter} selects: the matching endpoints, errors and types, plus
+ * every type they transitively reference, so that the result is still a valid definition.
+ */
+final class ConjureIrPruner {
+    private final GeneratorFilter filter;
+    private final List<Pattern> includeServices;
+    private final List<Pattern> excludeServices;
+    private final List<Pattern> includeEndpoints;
+    private final List<Pattern> excludeEndpoints;
+    private final List<Pattern> includePackages;
+    private final List<Pattern> excludePackages;
+
+    private ConjureIrPruner(GeneratorFilter filter) {
+        this.filter = filter;
+        this.includeServices = compile(filter.getIncludeServices());
+        this.excludeServices = compile(filter.getExcludeServices());
+        this.includeEndpoints = compile(filter.getIncludeEndpoints());
+        this.excludeEndpoints = compile(filter.getExcludeEndpoints());
+        this.includePackages = compile(filter.getIncludePackages());
+        this.excludePackages = compile(filter.getExcludePackages());
+    }
+
+    static JsonNode prune(JsonNode ir, GeneratorFilter filter) {
+        if (filter.isEmpty()) {
+            return ir;
+        }
+        return new ConjureIrPruner(filter).prune(ir);
+    }
+
+    private JsonNode prune(JsonNode ir) {
+        Deque<String> pending = new ArrayDeque<>();
+
+        ArrayNode services = JsonNodeFactory.instance.arrayNode();
+        for (JsonNode service : ir.path("services")) {
+            JsonNode serviceName = service.path("serviceName");
+            ArrayNode endpoints = JsonNodeFactory.instance.arrayNode();
+            for (JsonNode endpoint : service.path("endpoints")) {
+                if (isSelected(serviceName, endpoint.path("endpointName").asText())) {
+                    endpoints.add(endpoint);
+                    collectReferences(endpoint, pending::add);
+                }
+            }
+            if (endpoints.size() > 0) {
+                ObjectNode prunedService = JsonNodeFactory.instance.objectNode();
+                prunedService.setAll((ObjectNode) service);
+                prunedService.set("endpoints", endpoints);
+                services.add(prunedService);
+            }
+        }
+
+        ArrayNode errors = JsonNodeFactory.instance.arrayNode();
+        for (JsonNode error : ir.path("errors")) {
+            if (isSelectedDefinition(error.path("errorName"))) {
+                errors.add(error);
+                collectReferences(error, pending::add);
+            }
+        }
+
+        Map<String, JsonNode> typesByName = new HashMap<>();
+        for (JsonNode type : ir.path("types")) {
+            JsonNode typeName = type.path(type.path("type").asText()).path("typeName");
+            typesByName.put(qualifiedName(typeName), type);
+            if (isSelectedDefinition(typeName)) {
+                pending.add(qualifiedName(typeName));
+            }
+        }
+
+        Set<String> reachable = new HashSet<>();
+        while (!pending.isEmpty()) {
+            String typeName = pending.pop();
+            JsonNode type = typesByName.get(typeName);
+            if (type != null && reachable.add(typeName)) {
+                collectReferences(type, pending::add);
+            }
+        }
+
+        ArrayNode types = JsonNodeFactory.instance.arrayNode();
+        for (JsonNode type : ir.path("types")) {
+            if (reachable.contains(qualifiedName(type.path(type.path("type").asText()).path("typeName")))) {
+                types.add(type);
+            }
+        }
+
+        ObjectNode pruned = JsonNodeFactory.instance.objectNode();
+        pruned.setAll((ObjectNode) ir);
+        pruned.set("errors", errors);
+        pruned.set("types", types);
+        pruned.set("services", services);
+        return pruned;
+    }
+
+    private boolean isSelected(JsonNode serviceName, String endpointName) {
+        String service = serviceName.path("name").asText();
+        String qualifiedService = qualifiedName(serviceName);
+        String servicePackage = serviceName.path("package").asText();
+        String endpoint = service + "." + endpointName;
+        String qualifiedEndpoint = qualifiedService + "." + endpointName;
+
+        boolean included = !filter.hasIncludes()
+                || matches(includeServices, service, qualifiedService)
+                || matches(includeEndpoints, endpoint, qualifiedEndpoint)
+                || matches(includePackages, servicePackage);
+        return included
+                && !matches(excludeServices, service, qualifiedService)
+                && !matches(excludeEndpoints, endpoint, qualifiedEndpoint)
+                && !matches(excludePackages, servicePackage);
+    }
+
+    /** Whether a type or error should be kept regardless of whether anything references it. */
+    private boolean isSelectedDefinition(JsonNode typeName) {
+        String typePackage = typeName.path("package").asText();
+        return (!filter.hasIncludes() || matches(includePackages, typePackage))
+                && !matches(excludePackages, typePackage);
+    }
+
+    /** Finds the names of all types referenced anywhere within the given node. */
+    static void collectReferences(JsonNode node, Consumer<String> references) {
+        if (node.path("type").isTextual() && node.path("type").asText().equals("reference")) {
+            references.accept(qualifiedName(node.path("reference")));
+        }
+        node.elements().forEachRemaining(child -> collectReferences(child, references));
+    }
+
+    static String qualifiedName(JsonNode typeName) {
+        return typeName.path("package").asText() + "." + typeName.path("name").asText();
+    }
+
+    private static boolean matches(List<Pattern> patterns, String... names) {
+        for (Pattern pattern : patterns) {
+            for (String name : names) {
+                if (pattern.matcher(name).matches()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Pattern> compile(Set<String> globs) {
+        return globs.stream()
+                .map(glob -> Pattern.compile(Splitter.on('*').splitToList(glob).stream()
+                        .map(Pattern::quote)
+                        .collect(Collectors.joining(".*"))))
+                .collect(ImmutableList.toImmutableList());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.gradle.api.Project;
+
+/**
+ * A cache of the compiled output of generated Java bindings, shared by every build which uses the same Gradle user
+ * home. Entries are keyed by everything which affects the generated bytecode, so a hit can replace both generation and
+ * compilation.
+ */
+final class ConjureJavaCompiledCache {
+    /** Gradle property which enables the cache for {@code com.palantir.conjure-java-local}. */
+    static final String ENABLED_PROPERTY = "com.palantir.conjure.java.compiledCache";
+    /** Gradle property which moves the cache out of the Gradle user home. */
+    static final String DIRECTORY_PROPERTY = "com.palantir.conjure.java.compiledCacheDir";
+
+    /** Entries which haven't been stored or used for this long are deleted, like Gradle does for its own caches. */
+    static final Duration MAX_UNUSED_AGE = Duration.ofDays(30);
+
+    // Entries are written with a fixed timestamp so that identical classes always produce an identical jar
+    private static final long ENTRY_TIME = new GregorianCalendar(1980, 1, 1, 0, 0, 0).getTimeInMillis();
+
+    private ConjureJavaCompiledCache() {}
+
+    static File cacheDirectory(Project project) {
+        Object directory = project.findProperty(DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return project.file(directory);
+        }
+        return new File(project.getGradle().getGradleUserHomeDir(), "caches/conjure-java-local/compiled");
+    }
+
+    static String cacheKey(
+            File irFile,
+            String conjureJavaVersion,
+            String conjureLibVersion,
+            String targetCompatibility,
+            Map<String, Object> generatorOptions) {
+        try {
+            Hasher hasher = Hashing.sha256().newHasher();
+            hasher.putBytes(Files.readAllBytes(irFile.toPath()));
+            hasher.putString(conjureJavaVersion, StandardCharsets.UTF_8);
+            hasher.putString(conjureLibVersion, StandardCharsets.UTF_8);
+            hasher.putString(targetCompatibility, StandardCharsets.UTF_8);
+            RenderGeneratorOptions.toArgs(generatorOptions, Collections.emptyMap())
+                    .forEach(arg -> hasher.putString(arg, StandardCharsets.UTF_8));
+            return hasher.hash().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash conjure definition " + irFile, e);
+        }
+    }
+
+    /** Packages the given classes directory into the cache, replacing any existing entry atomically. */
+    static void store(File classesDirectory, File cacheFile) {
+        Path target = cacheFile.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            writeJar(classesDirectory.toPath(), temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store compiled conjure bindings in " + cacheFile, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                // Best effort, the entry itself has either been written or the store already failed
+            }
+        }
+    }
+
+    /** Records that the given entry was just used, so that it is kept for another {@link #MAX_UNUSED_AGE}. */
+    static void markUsed(File cacheFile) {
+        // Best effort, as failing to do so only means the entry may be evicted and stored again earlier
+        cacheFile.setLastModified(System.currentTimeMillis());
+    }
+
+    /** Deletes the entries which haven't been stored or used for {@link #MAX_UNUSED_AGE}. */
+    static void evictUnused(File cacheDirectory, long now) {
+        File[] entries = cacheDirectory.listFiles((_dir, name) -> name.endsWith(".jar"));
+        if (entries == null) {
+            return;
+        }
+        for (File entry : entries) {
+            if (now - entry.lastModified() > MAX_UNUSED_AGE.toMillis()) {
+                try {
+                    Files.deleteIfExists(entry.toPath());
+                } catch (IOException e) {
+                    // Usually another build is reading the entry, which makes it used again anyway
+                }
+            }
+        }
+    }
+
+    private static void writeJar(Path classesDirectory, Path jar) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(classesDirectory)) {
+            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+
+        try (OutputStream outputStream = Files.newOutputStream(jar);
+                ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            for (Path file : files) {
+                ZipEntry entry = new ZipEntry(
+                        classesDirectory.relativize(file).toString().replace(File.separatorChar, '/'));
+                entry.setTime(ENTRY_TIME);
+                zip.putNextEntry(entry);
+                Files.copy(file, zip);
+                zip.closeEntry();
+            }
+        }
+    }
+}
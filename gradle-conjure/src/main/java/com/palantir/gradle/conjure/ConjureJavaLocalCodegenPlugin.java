@@ -18,6 +18,7 @@ package com.palantir.gradle.conjure;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.Sets;
 import com.palantir.conjure.java.serialization.ObjectMappers;
 import com.palantir.gradle.conjure.api.ConjureExtension;
@@ -30,27 +31,35 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import java.util.jar.JarFile;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.JavaBasePlugin;
 import org.gradle.api.plugins.JavaLibraryPlugin;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.provider.Provider;
-import org.gradle.api.tasks.Copy;
+import org.gradle.api.publish.ivy.tasks.PublishToIvyRepository;
+import org.gradle.api.publish.maven.tasks.AbstractPublishToMaven;
 import org.gradle.api.tasks.TaskProvider;
+import org.gradle.api.tasks.bundling.Jar;
+import org.gradle.api.tasks.compile.JavaCompile;
 
 public final class ConjureJavaLocalCodegenPlugin implements Plugin<Project> {
     private static final ObjectMapper OBJECT_MAPPER = ObjectMappers.newClientObjectMapper();
     private static final String CONJURE_CONFIGURATION = "conjure";
-    private static final Pattern DEFINITION_NAME =
-            Pattern.compile("(.*)-([0-9]+\\.[0-9]+\\.[0-9]+(?:-rc[0-9]+)?(?:-[0-9]+-g[a-f0-9]+)?)(\\.conjure)?\\.json");
 
     static final String CONJURE_JAVA = "conjureJava";
     static final String CONJURE_JAVA_BINARY = "com.palantir.conjure.java:conjure-java";
+    static final String PUBLISHED_BINDINGS_PROPERTY = "com.palantir.conjure.java.publishedBindings";
 
     @Override
     public void apply(Project project) {
@@ -59,28 +68,39 @@ public final class ConjureJavaLocalCodegenPlugin implements Plugin<Project> {
         ConjureExtension extension =
                 project.getExtensions().create(ConjureExtension.EXTENSION_NAME, ConjureExtension.class);
 
+        ConjureReports.registerReportTask(project);
+        ConjureBuildMetrics.register(project);
         Configuration conjureIrConfiguration = project.getConfigurations().create(CONJURE_CONFIGURATION);
-        TaskProvider<Copy> extractConjureIr = project.getTasks().register("extractConjureIr", Copy.class, task -> {
-            task.rename(DEFINITION_NAME, "$1.conjure.json");
-            task.from(conjureIrConfiguration);
-            task.into(project.getLayout().getBuildDirectory().dir("conjure-ir"));
+        FileCollection conjureIrFiles =
+                DecompressConjureIrTask.decompressedDefinitions(project, conjureIrConfiguration);
+        TaskProvider<Task> extractConjureIr = project.getTasks().register("extractConjureIr", task -> {
+            task.setDescription("Extracts the Conjure definitions of all subprojects.");
         });
 
         Configuration conjureJavaConfig = project.getConfigurations().create(CONJURE_JAVA);
         File conjureJavaDir = new File(project.getBuildDir(), CONJURE_JAVA);
-        project.getDependencies().add(CONJURE_JAVA, CONJURE_JAVA_BINARY);
+        project.getDependencies().add(CONJURE_JAVA, OsUtils.generatorDependency(project, CONJURE_JAVA_BINARY));
         ExtractExecutableTask extractJavaTask = ExtractExecutableTask.createExtractTask(
                 project, "extractConjureJava", conjureJavaConfig, conjureJavaDir, "conjure-java");
 
-        setupSubprojects(project, extension, extractJavaTask, extractConjureIr, conjureIrConfiguration);
+        setupSubprojects(
+                project,
+                extension,
+                extractJavaTask,
+                extractConjureIr,
+                conjureIrFiles,
+                conjureIrConfiguration,
+                conjureJavaConfig);
     }
 
     private static void setupSubprojects(
             Project project,
             ConjureExtension extension,
             ExtractExecutableTask extractJavaTask,
-            TaskProvider<Copy> extractConjureIr,
-            Configuration conjureIrConfiguration) {
+            TaskProvider<Task> extractConjureIr,
+            FileCollection conjureIrFiles,
+            Configuration conjureIrConfiguration,
+            Configuration conjureJavaConfig) {
 
         // Validating that each subproject has a corresponding definition and vice versa.
         // We do this in afterEvaluate to ensure the configuration is populated.
@@ -106,7 +126,22 @@ public final class ConjureJavaLocalCodegenPlugin implements Plugin<Project> {
         project.getChildProjects().forEach((name, subproject) -> {
             subproject.getPluginManager().apply(JavaLibraryPlugin.class);
             subproject.getPluginManager().apply(RecommendedProductDependenciesPlugin.class);
-            createGenerateTask(subproject, extension, extractJavaTask, extractConjureIr);
+            TaskProvider<ExtractConjureIrTask> extractSubprojectIr = subproject.getTasks()
+                    .register("extractConjureIr", ExtractConjureIrTask.class, task -> {
+                        task.setDescription("Extracts the Conjure definition of this project.");
+                        task.setDefinitionName(name);
+                        task.setConjureIrFiles(conjureIrFiles);
+                        task.setOutputFile(
+                                () -> new File(project.getBuildDir(), "conjure-ir/" + name + ".conjure.json"));
+                    });
+            extractConjureIr.configure(task -> task.dependsOn(extractSubprojectIr));
+            createGenerateTask(
+                    subproject,
+                    extension,
+                    extractJavaTask,
+                    extractSubprojectIr,
+                    conjureIrConfiguration,
+                    conjureJavaConfig);
         });
     }
 
@@ -114,8 +149,11 @@ public final class ConjureJavaLocalCodegenPlugin implements Plugin<Project> {
             Project project,
             ConjureExtension extension,
             ExtractExecutableTask extractJavaTask,
-            TaskProvider<Copy> extractConjureIr) {
+            TaskProvider<ExtractConjureIrTask> extractConjureIr,
+            Configuration conjureIrConfiguration,
+            Configuration conjureJavaConfig) {
         ConjurePlugin.addGeneratedToMainSourceSet(project);
+        boolean usePublishedBindings = ConjurePlugin.isPropertyEnabled(project, PUBLISHED_BINDINGS_PROPERTY);
 
         project.getDependencies().add("api", "com.palantir.conjure.java:conjure-lib");
         project.getDependencies().add("compileOnly", ConjurePlugin.ANNOTATION_API);
@@ -123,34 +161,189 @@ public final class ConjureJavaLocalCodegenPlugin implements Plugin<Project> {
         Task generateGitIgnore = ConjurePlugin.createWriteGitignoreTask(
                 project, "gitignoreConjure", project.getProjectDir(), ConjurePlugin.JAVA_GITIGNORE_CONTENTS);
 
-        Provider<File> conjureIrFile = extractConjureIr.map(
-                irTask -> new File(irTask.getDestinationDir(), project.getName() + ".conjure.json"));
+        Provider<File> conjureIrFile = extractConjureIr.map(ExtractConjureIrTask::getOutputFile);
+        Provider<String> module = publishedModule(project, conjureIrConfiguration);
+        Supplier<Optional<ConjureIrDigest>> publishedDigest = Suppliers.memoize(() -> Optional.of(module.get())
+                .filter(coordinates -> !coordinates.isEmpty())
+                .flatMap(coordinates -> ResolvePrebuiltConjureTask.resolveLeniently(
+                        project, coordinates, ConjureIrDigest.CLASSIFIER, "json"))
+                .map(ConjureIrDigest::read));
         project.getTasks().named("configureProductDependencies", ConfigureProductDependenciesTask.class, task -> {
-            task.setProductDependencies(conjureIrFile.map(ConjureJavaLocalCodegenPlugin::extractProductDependencies));
-            task.dependsOn(extractConjureIr);
+            // The IR is only extracted and parsed if no digest was published alongside it
+            task.setProductDependencies(project.provider(() -> publishedDigest
+                    .get()
+                    .map(ConjureIrDigest::productDependencies)
+                    .orElseGet(() -> extractProductDependencies(conjureIrFile.get()))));
+            task.dependsOn((Callable<Object>)
+                    () -> publishedDigest.get().isPresent() ? Collections.emptyList() : extractConjureIr);
+        });
+
+        FileCollection generatorIrFiles = PruneConjureIrTask.prunedDefinitions(
+                project,
+                "pruneConjureIr",
+                project.files(conjureIrFile).builtBy(extractConjureIr),
+                () -> extension.getFilter("java"),
+                new File(project.getBuildDir(), "conjure-pruned"));
+
+        Provider<Map<String, Object>> generatorOptions = project.provider(() -> {
+            Map<String, Object> properties = new HashMap<>(extension.getJava().getProperties());
+            properties.putIfAbsent("packagePrefix", sanitizePackageName(project.getGroup().toString()));
+            return properties;
         });
 
         TaskProvider<ConjureJavaLocalGeneratorTask> generateJava = project.getTasks()
                 .register("generateConjure", ConjureJavaLocalGeneratorTask.class, task -> {
-                    task.setSource(conjureIrFile);
+                    task.setSource(generatorIrFiles);
                     task.getExecutablePath()
                             .set(project.getLayout()
                                     .file(project.provider(
                                             () -> OsUtils.appendDotBatIfWindows(extractJavaTask.getExecutable()))));
-                    task.getOptions().set(project.provider(() -> {
-                        Map<String, Object> properties =
-                                new HashMap<>(extension.getJava().getProperties());
-                        properties.putIfAbsent(
-                                "packagePrefix",
-                                sanitizePackageName(project.getGroup().toString()));
-                        return properties;
-                    }));
+                    task.getOptions().set(generatorOptions);
                     task.getOutputDirectory().set(project.file(ConjurePlugin.JAVA_GENERATED_SOURCE_DIRNAME));
                     task.dependsOn(extractJavaTask, extractConjureIr, generateGitIgnore);
                 });
 
-        project.getTasks().named("compileJava").configure(compileJava -> compileJava.dependsOn(generateJava));
+        ConjurePlugin.generatedSourcesCompileTask(project).dependsOn(generateJava);
         ConjurePlugin.applyDependencyForIdeTasks(project, generateJava.get());
+
+        TaskProvider<JavaCompile> compileJava = project.getTasks()
+                .named(ConjurePlugin.generatedSourcesCompileTask(project).getName(), JavaCompile.class);
+        Optional<TaskProvider<ResolvePrebuiltConjureTask>> resolvePublished = Optional.empty();
+        if (usePublishedBindings) {
+            resolvePublished = Optional.of(setupPublishedBindings(
+                    project,
+                    extension,
+                    conjureIrConfiguration,
+                    conjureJavaConfig,
+                    generatorOptions,
+                    generateJava,
+                    compileJava));
+        }
+        if (ConjurePlugin.isPropertyEnabled(project, ConjureJavaCompiledCache.ENABLED_PROPERTY)) {
+            TaskProvider<RestoreCompiledConjureTask> restore = setupCompiledCache(
+                    project,
+                    conjureJavaConfig,
+                    generatorIrFiles,
+                    generatorOptions,
+                    generateJava,
+                    compileJava);
+            // Published bindings are preferred, so the cache is only consulted if there are none
+            resolvePublished.ifPresent(resolve -> restore.configure(task -> {
+                task.dependsOn(resolve);
+                task.onlyIf(_task -> !resolve.get().isPrebuilt());
+            }));
+        }
+    }
+
+    /**
+     * Uses the Java bindings published with the conjure definition when they were generated with exactly the options,
+     * including the default package prefix, and the (lack of a) filter this project would generate them with.
+     */
+    private static TaskProvider<ResolvePrebuiltConjureTask> setupPublishedBindings(
+            Project project,
+            ConjureExtension extension,
+            Configuration conjureIrConfiguration,
+            Configuration conjureJavaConfig,
+            Provider<Map<String, Object>> generatorOptions,
+            TaskProvider<ConjureJavaLocalGeneratorTask> generateJava,
+            TaskProvider<JavaCompile> compileJava) {
+        TaskProvider<ResolvePrebuiltConjureTask> resolve = project.getTasks()
+                .register("resolvePublishedConjureBindings", ResolvePrebuiltConjureTask.class, task -> {
+                    task.getModule().set(publishedModule(project, conjureIrConfiguration));
+                    task.getConjureJavaVersion().set(project.provider(() -> CheckConjureJavaVersions
+                            .findResolvedVersionOf(conjureJavaConfig, CONJURE_JAVA_BINARY)));
+                    task.getOptions().set(generatorOptions);
+                    task.getFiltered().set(project.provider(() -> !extension.getFilter("java").isEmpty()));
+                    task.getPrebuiltJar()
+                            .set(project.getLayout().getBuildDirectory().file("conjure-published/" + project.getName()
+                                    + ".jar"));
+                });
+        usePrebuiltBindings(project, resolve, generateJava, compileJava);
+        return resolve;
+    }
+
+    /**
+     * Skips generating and compiling the bindings when the {@link ConjureJavaCompiledCache} already holds a jar for the
+     * same definition, generator and compiler settings, and otherwise stores the compiled bindings in it.
+     */
+    private static TaskProvider<RestoreCompiledConjureTask> setupCompiledCache(
+            Project project,
+            Configuration conjureJavaConfig,
+            FileCollection generatorIrFiles,
+            Provider<Map<String, Object>> generatorOptions,
+            TaskProvider<ConjureJavaLocalGeneratorTask> generateJava,
+            TaskProvider<JavaCompile> compileJava) {
+        TaskProvider<RestoreCompiledConjureTask> restore = project.getTasks()
+                .register("restoreCompiledConjure", RestoreCompiledConjureTask.class, task -> {
+                    task.getIrFile()
+                            .set(project.getLayout().file(project.provider(generatorIrFiles::getSingleFile)));
+                    task.getConjureJavaVersion().set(project.provider(() -> CheckConjureJavaVersions
+                            .findResolvedVersionOf(conjureJavaConfig, CONJURE_JAVA_BINARY)));
+                    task.getConjureLibVersion().set(project.provider(() -> CheckConjureJavaVersions
+                            .findResolvedVersionOf(
+                                    project.getConfigurations()
+                                            .getByName(JavaPlugin.COMPILE_CLASSPATH_CONFIGURATION_NAME),
+                                    ConjurePlugin.CONJURE_JAVA_LIB_DEP)));
+                    task.getTargetCompatibility().set(compileJava.map(JavaCompile::getTargetCompatibility));
+                    task.getOptions().set(generatorOptions);
+                    task.getPrebuiltJar()
+                            .set(project.getLayout().getBuildDirectory().file("conjure-compiled/" + project.getName()
+                                    + ".jar"));
+                    task.dependsOn(generatorIrFiles);
+                });
+        usePrebuiltBindings(project, restore, generateJava, compileJava);
+
+        TaskProvider<StoreCompiledConjureTask> store = project.getTasks()
+                .register("storeCompiledConjure", StoreCompiledConjureTask.class, task -> {
+                    task.setRestoreTask(restore.get());
+                    task.setCompileTask(compileJava.get());
+                    task.setClassesDirectory(() -> compileJava.get().getDestinationDir());
+                });
+        compileJava.configure(task -> task.finalizedBy(store));
+        return restore;
+    }
+
+    /**
+     * Skips generating and compiling the bindings whenever the given task finds prebuilt ones, which are then put on
+     * the {@code api} configuration. Only builds which publish the project also merge them into its jar, which would
+     * otherwise put the same classes on in-build runtime classpaths twice.
+     */
+    private static void usePrebuiltBindings(
+            Project project,
+            TaskProvider<? extends PrebuiltBindingsTask> prebuilt,
+            TaskProvider<ConjureJavaLocalGeneratorTask> generateJava,
+            TaskProvider<JavaCompile> compileJava) {
+        prebuilt.configure(task -> task.setClassesDirectory(() -> compileJava.get().getDestinationDir()));
+        generateJava.configure(task -> {
+            task.dependsOn(prebuilt);
+            task.onlyIf(_task -> !prebuilt.get().isPrebuilt());
+        });
+        compileJava.configure(task -> {
+            task.dependsOn(prebuilt);
+            task.onlyIf(_task -> !prebuilt.get().isPrebuilt());
+        });
+
+        // The jar gets its own manifest, including the product dependencies from the IR
+        project.getTasks().named(JavaPlugin.JAR_TASK_NAME, Jar.class).configure(jar -> jar.from(
+                project.provider(() -> prebuilt.get().isPrebuilt() && isPublished(project)
+                        ? project.zipTree(prebuilt.get().getPrebuiltJar())
+                        : Collections.emptyList()),
+                spec -> spec.exclude(JarFile.MANIFEST_NAME)));
+
+        project.getDependencies()
+                .add(
+                        "api",
+                        project.files((Callable<Object>) () -> prebuilt.get().isPrebuilt()
+                                        ? prebuilt.get().getPrebuiltJar()
+                                        : Collections.emptyList())
+                                .builtBy(prebuilt));
+    }
+
+    /** Whether the current build publishes the given project, so its jar is consumed from outside of the build. */
+    private static boolean isPublished(Project project) {
+        return project.getGradle().getTaskGraph().getAllTasks().stream()
+                .anyMatch(task -> task.getProject() == project
+                        && (task instanceof AbstractPublishToMaven || task instanceof PublishToIvyRepository));
     }
 
     /**
@@ -161,6 +354,20 @@ public final class ConjureJavaLocalCodegenPlugin implements Plugin<Project> {
         return group.replaceAll("-", "");
     }
 
+    /** The {@code group:name:version} of the project's conjure IR, or empty if it isn't from a repository. */
+    private static Provider<String> publishedModule(Project project, Configuration conjureIrConfiguration) {
+        return project.provider(() -> conjureIrConfiguration.getAllDependencies().stream()
+                .filter(dependency -> dependency instanceof ExternalModuleDependency
+                        && dependency.getName().equals(project.getName()))
+                .findFirst()
+                .map(dependency -> {
+                    String module = dependency.getGroup() + ":" + dependency.getName();
+                    return module + ":"
+                            + CheckConjureJavaVersions.findResolvedVersionOf(conjureIrConfiguration, module);
+                })
+                .orElse(""));
+    }
+
     private static Set<ProductDependency> extractProductDependencies(File irFile) {
         try {
             MinimalConjureDefinition conjureDefinition =
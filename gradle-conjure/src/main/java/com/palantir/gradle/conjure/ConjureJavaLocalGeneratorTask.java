@@ -24,6 +24,7 @@ import java.io.File;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import org.gradle.api.file.DirectoryProperty;
 import org.gradle.api.file.FileTree;
 import org.gradle.api.file.RegularFileProperty;
@@ -40,7 +41,7 @@ import org.gradle.util.GFileUtils;
 
 @CacheableTask
 public class ConjureJavaLocalGeneratorTask extends SourceTask {
-    private static final ImmutableSet<String> GENERATOR_FLAGS =
+    static final ImmutableSet<String> GENERATOR_FLAGS =
             ImmutableSet.of("objects", "jersey", "undertow", "dialogue");
 
     private final RegularFileProperty executablePath = getProject().getObjects().fileProperty();
@@ -73,6 +74,7 @@ public class ConjureJavaLocalGeneratorTask extends SourceTask {
 
     @TaskAction
     public final void generate() {
+        long start = System.nanoTime();
         Preconditions.checkArgument(getSource().getFiles().size() == 1, "Exactly one input file must be specified");
         Map<String, Object> generatorOptions = getOptions().get();
         Preconditions.checkArgument(
@@ -106,5 +108,7 @@ public class ConjureJavaLocalGeneratorTask extends SourceTask {
                     generateCommand,
                     RenderGeneratorOptions.toArgs(filteredOptions, Collections.emptyMap()));
         });
+        ConjureReports.write(
+                this, ImmutableList.of(ConjureReports.measure(definitionFile, Optional.of(outputDir), start)));
     }
 }
@@ -16,11 +16,45 @@
 
 package com.palantir.gradle.conjure;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.base.Throwables;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.LocalState;
+import org.gradle.util.GFileUtils;
+import org.immutables.value.Value;
 
 @CacheableTask
 public class ConjureLocalGenerateTask extends ConjureGeneratorTask {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, IrGenerationState>> STATE_TYPE =
+            new TypeReference<Map<String, IrGenerationState>>() {};
 
     @Override
     protected final File outputDirectoryFor(File file) {
@@ -28,4 +62,199 @@ public class ConjureLocalGenerateTask extends ConjureGeneratorTask {
         return new File(
                 getOutputDirectory(), file.getName().substring(0, file.getName().lastIndexOf("-")));
     }
+
+    /**
+     * Records what each IR was last generated from and what it produced, so that only IRs which changed are
+     * regenerated. Gradle deletes this when outputs are restored from the build cache, which forces a full regeneration
+     * on the next run.
+     */
+    @LocalState
+    public final File getGenerationStateFile() {
+        return new File(getProject().getBuildDir(), "conjure-local/" + getName() + ".json");
+    }
+
+    @Override
+    final boolean supportsWorkers() {
+        // Only regenerates the definitions which changed, and records what it generated
+        return false;
+    }
+
+    @Override
+    public final void compileFiles() {
+        Map<String, IrGenerationState> previousState = readGenerationState();
+        Map<String, IrGenerationState> currentState = new ConcurrentHashMap<>();
+        Set<File> irFiles = getSource().getFiles();
+
+        List<File> changedIrFiles = new ArrayList<>();
+        irFiles.forEach(irFile -> {
+            IrGenerationState previous = previousState.get(irFile.getName());
+            if (previous != null
+                    && previous.inputHash().equals(hashInputs(irFile))
+                    && previous.outputHash().equals(hashOutputs(outputDirectoryFor(irFile)))) {
+                currentState.put(irFile.getName(), previous);
+            } else {
+                changedIrFiles.add(irFile);
+            }
+        });
+
+        // Remove the output of definitions which are no longer dependencies, unless another version replaced them
+        Set<String> currentIrNames = irFiles.stream().map(File::getName).collect(Collectors.toSet());
+        Set<File> currentOutputDirectories =
+                irFiles.stream().map(this::outputDirectoryFor).collect(Collectors.toSet());
+        previousState.keySet().stream()
+                .filter(irName -> !currentIrNames.contains(irName))
+                .map(irName -> outputDirectoryFor(new File(irName)))
+                .filter(outputDir -> !currentOutputDirectories.contains(outputDir))
+                .forEach(GFileUtils::deleteDirectory);
+
+        getLogger().info("Regenerating {} of {} conjure definitions", changedIrFiles.size(), irFiles.size());
+        // Everything which needs the project is resolved here, as the generators may run on other threads
+        Optional<NodeGeneratorPool> generatorServers = generatorServers();
+        List<Generation> generations = changedIrFiles.stream()
+                .map(irFile -> new Generation(irFile, hashInputs(irFile), invocationFor(irFile)))
+                .collect(Collectors.toList());
+        AtomicLong execNanos = new AtomicLong();
+        try {
+            generateInParallel(generations, generation -> {
+                long start = System.nanoTime();
+                ConjureReports.DefinitionReport report = generation.invocation.run(generatorServers);
+                execNanos.addAndGet(System.nanoTime() - start);
+                addDefinitionReport(report);
+                currentState.put(
+                        generation.irFile.getName(),
+                        ImmutableIrGenerationState.builder()
+                                .inputHash(generation.inputHash)
+                                .outputHash(hashOutputs(outputDirectoryFor(generation.irFile)))
+                                .build());
+            });
+        } finally {
+            ConjureBuildMetrics.recordExecs(getProject(), generations.size(), execNanos.get());
+            // Definitions which failed to generate are left out, so they are regenerated on the next run
+            writeGenerationState(currentState);
+        }
+    }
+
+    /**
+     * Runs the given generations on a pool of threads, which must not access the project as it is not thread-safe.
+     */
+    private void generateInParallel(List<Generation> generations, Consumer<Generation> generate) {
+        if (generations.size() <= 1) {
+            generations.forEach(generate);
+            return;
+        }
+
+        int parallelism = Math.min(
+                generations.size(), Math.max(1, getProject().getGradle().getStartParameter().getMaxWorkerCount()));
+        ExecutorService executor = Executors.newFixedThreadPool(
+                parallelism,
+                new ThreadFactoryBuilder()
+                        .setNameFormat(getName() + "-%d")
+                        .setDaemon(true)
+                        .build());
+        try {
+            List<Future<?>> futures = generations.stream()
+                    .map(generation -> executor.submit(() -> generate.accept(generation)))
+                    .collect(Collectors.toList());
+
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while generating conjure definitions", e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                Throwable failure = failures.get(0);
+                failures.stream().skip(1).forEach(failure::addSuppressed);
+                Throwables.throwIfUnchecked(failure);
+                throw new RuntimeException(failure);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /** Hashes everything the output for this definition depends on: its contents, the generator and its options. */
+    private String hashInputs(File irFile) {
+        try {
+            Hasher hasher = Hashing.sha256().newHasher();
+            hasher.putBytes(Files.readAllBytes(irFile.toPath()));
+            hasher.putBytes(Files.readAllBytes(getExecutablePath().toPath()));
+            hasher.putString(getExecutablePath().getAbsolutePath(), StandardCharsets.UTF_8);
+            generatorArgs(irFile).forEach(arg -> hasher.putString(arg, StandardCharsets.UTF_8));
+            return hasher.hash().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to hash conjure definition " + irFile, e);
+        }
+    }
+
+    /** A cheap fingerprint of the generated files, so that modified or deleted outputs are regenerated. */
+    private static String hashOutputs(File outputDirectory) {
+        if (!outputDirectory.isDirectory()) {
+            return "";
+        }
+
+        Path root = outputDirectory.toPath();
+        Hasher hasher = Hashing.sha256().newHasher();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                hasher.putString(root.relativize(path).toString(), StandardCharsets.UTF_8);
+                hasher.putLong(Files.size(path));
+                hasher.putLong(Files.getLastModifiedTime(path).toMillis());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to fingerprint generated files in " + outputDirectory, e);
+        }
+        return hasher.hash().toString();
+    }
+
+    private Map<String, IrGenerationState> readGenerationState() {
+        File stateFile = getGenerationStateFile();
+        if (!stateFile.isFile()) {
+            return Collections.emptyMap();
+        }
+
+        try {
+            return OBJECT_MAPPER.readValue(stateFile, STATE_TYPE);
+        } catch (IOException e) {
+            getLogger().info("Ignoring unreadable conjure generation state {}", stateFile, e);
+            return Collections.emptyMap();
+        }
+    }
+
+    private void writeGenerationState(Map<String, IrGenerationState> state) {
+        File stateFile = getGenerationStateFile();
+        try {
+            Files.createDirectories(stateFile.getParentFile().toPath());
+            OBJECT_MAPPER.writeValue(stateFile, state);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write conjure generation state " + stateFile, e);
+        }
+    }
+
+    /** A definition to regenerate, and the hash of its inputs at the time it was scheduled. */
+    private static final class Generation {
+        private final File irFile;
+        private final String inputHash;
+        private final ConjureGeneratorAction.Invocation invocation;
+
+        Generation(File irFile, String inputHash, ConjureGeneratorAction.Invocation invocation) {
+            this.irFile = irFile;
+            this.inputHash = inputHash;
+            this.invocation = invocation;
+        }
+    }
+
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableIrGenerationState.class)
+    @JsonSerialize(as = ImmutableIrGenerationState.class)
+    interface IrGenerationState {
+        String inputHash();
+
+        String outputHash();
+    }
 }
@@ -20,6 +20,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.palantir.gradle.conjure.api.ConjureExtension;
+import com.palantir.gradle.conjure.api.GeneratorFilter;
 import com.palantir.gradle.conjure.api.GeneratorOptions;
 import java.io.File;
 import java.util.Map;
@@ -34,6 +35,7 @@ import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.plugins.BasePlugin;
 import org.gradle.api.plugins.JavaLibraryPlugin;
+import org.gradle.api.tasks.SourceTask;
 import org.gradle.util.GUtil;
 
 public final class ConjureLocalPlugin implements Plugin<Project> {
@@ -58,17 +60,31 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
         ConjureExtension extension =
                 project.getExtensions().create(ConjureExtension.EXTENSION_NAME, ConjureExtension.class);
 
+        ConjureReports.registerReportTask(project);
+        ConjureBuildMetrics.register(project);
         Task generateConjure = project.getTasks().create("generateConjure", task -> {
             task.setDescription("Generates code for all requested languages (for which there is a subproject) "
                     + "from remote Conjure definitions.");
             task.setGroup(ConjurePlugin.TASK_GROUP);
         });
         setupConjureJava(
-                project, immutableOptionsSupplier(extension::getJava), conjureIrConfiguration, generateConjure);
+                project,
+                immutableOptionsSupplier(extension::getJava),
+                () -> extension.getFilter(JAVA_PROJECT_NAME),
+                conjureIrConfiguration,
+                generateConjure);
         setupConjurePython(
-                project, immutableOptionsSupplier(extension::getPython), conjureIrConfiguration, generateConjure);
+                project,
+                immutableOptionsSupplier(extension::getPython),
+                () -> extension.getFilter(PYTHON_PROJECT_NAME),
+                conjureIrConfiguration,
+                generateConjure);
         setupConjureTypeScript(
-                project, immutableOptionsSupplier(extension::getTypescript), conjureIrConfiguration, generateConjure);
+                project,
+                immutableOptionsSupplier(extension::getTypescript),
+                () -> extension.getFilter(TYPESCRIPT_PROJECT_NAME),
+                conjureIrConfiguration,
+                generateConjure);
         setupGenericConjureProjects(
                 project, extension, conjureIrConfiguration, generateConjure, conjureGeneratorsConfiguration);
     }
@@ -76,6 +92,7 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
     private void setupConjureJava(
             Project project,
             Supplier<GeneratorOptions> optionsSupplier,
+            Supplier<GeneratorFilter> filterSupplier,
             Configuration conjureIrConfiguration,
             Task generateConjure) {
         Project subproj = project.findProject(JAVA_PROJECT_NAME);
@@ -85,13 +102,18 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
 
         Configuration conjureJavaConfig = project.getConfigurations().maybeCreate(ConjurePlugin.CONJURE_JAVA);
         File conjureJavaDir = new File(project.getBuildDir(), ConjurePlugin.CONJURE_JAVA);
-        project.getDependencies().add(ConjurePlugin.CONJURE_JAVA, ConjurePlugin.CONJURE_JAVA_BINARY);
+        project.getDependencies()
+                .add(
+                        ConjurePlugin.CONJURE_JAVA,
+                        OsUtils.generatorDependency(project, ConjurePlugin.CONJURE_JAVA_BINARY));
         ExtractExecutableTask extractJavaTask = ExtractExecutableTask.createExtractTask(
                 project, "extractConjureJava", conjureJavaConfig, conjureJavaDir, "conjure-java");
 
         subproj.getPluginManager().apply(JavaLibraryPlugin.class);
         ConjurePlugin.addGeneratedToMainSourceSet(subproj);
 
+        FileCollection conjureIrFiles =
+                prunedDefinitions(project, JAVA_PROJECT_NAME, conjureIrConfiguration, filterSupplier);
         Task gitignoreConjureJava = ConjurePlugin.createWriteGitignoreTask(
                 subproj, "gitignoreConjureJava", subproj.getProjectDir(), ConjurePlugin.JAVA_GITIGNORE_CONTENTS);
 
@@ -108,12 +130,12 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
 
                 return generatorOptions;
             });
-            task.setSource(conjureIrConfiguration);
+            task.setSource(conjureIrFiles);
             task.setExecutablePath(extractJavaTask::getExecutable);
             task.setOutputDirectory(subproj.file(ConjurePlugin.JAVA_GENERATED_SOURCE_DIRNAME));
 
             generateConjure.dependsOn(task);
-            subproj.getTasks().getByName("compileJava").dependsOn(task);
+            ConjurePlugin.generatedSourcesCompileTask(subproj).dependsOn(task);
 
             ConjurePlugin.applyDependencyForIdeTasks(subproj, task);
             task.dependsOn(gitignoreConjureJava);
@@ -123,6 +145,19 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
             cleanTask.dependsOn(project.getTasks().findByName("cleanGenerateJava"));
             subproj.getDependencies().add("api", subproj);
         });
+
+        if (ConjurePlugin.isPropertyEnabled(project, IndexSharedConjureTypesTask.ENABLED_PROPERTY)) {
+            IndexSharedConjureTypesTask indexSharedTypes = project.getTasks()
+                    .create("indexSharedJavaTypes", IndexSharedConjureTypesTask.class, task -> {
+                        task.setDescription("Finds the Java types which several Conjure definitions share.");
+                        task.setSource(conjureIrFiles);
+                        task.setOutputFile(new File(project.getBuildDir(), "conjure-local/shared-java-types.json"));
+                    });
+            IndexSharedConjureTypesTask.excludeDuplicates(
+                    (SourceTask) ConjurePlugin.generatedSourcesCompileTask(subproj),
+                    indexSharedTypes,
+                    subproj.file(ConjurePlugin.JAVA_GENERATED_SOURCE_DIRNAME));
+        }
     }
 
     private void setupGenericConjureProjects(
@@ -177,6 +212,8 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
                     new File(subproject.getBuildDir(), "generator"),
                     String.format("conjure-%s", subprojectName));
 
+            FileCollection conjureIrFiles = prunedDefinitions(
+                    project, subprojectName, conjureIrConfiguration, () -> conjureExtension.getFilter(subprojectName));
             ConjureLocalGenerateTask conjureLocalGenerateTask = project.getTasks()
                     .create(
                             GUtil.toLowerCamelCase("generate " + subprojectName),
@@ -185,7 +222,7 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
                                 task.setDescription(String.format(
                                         "Generates %s files from remote Conjure definitions.", subprojectName));
                                 task.setGroup(ConjurePlugin.TASK_GROUP);
-                                task.setSource(conjureIrConfiguration);
+                                task.setSource(conjureIrFiles);
                                 task.setExecutablePath(extractConjureGeneratorTask::getExecutable);
                                 task.setOptions(() -> conjureExtension.getGenericOptions(subprojectName));
                                 task.setOutputDirectory(subproject.file(subprojectName));
@@ -198,6 +235,7 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
     private void setupConjurePython(
             Project project,
             Supplier<GeneratorOptions> optionsSupplier,
+            Supplier<GeneratorFilter> filterSupplier,
             Configuration conjureIrConfiguration,
             Task generateConjure) {
         Project subproj = project.findProject(PYTHON_PROJECT_NAME);
@@ -207,15 +245,20 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
         Configuration conjurePythonConfig = project.getConfigurations().maybeCreate(ConjurePlugin.CONJURE_PYTHON);
 
         File conjurePythonDir = new File(project.getBuildDir(), ConjurePlugin.CONJURE_PYTHON);
-        project.getDependencies().add(ConjurePlugin.CONJURE_PYTHON, ConjurePlugin.CONJURE_PYTHON_BINARY);
+        project.getDependencies()
+                .add(
+                        ConjurePlugin.CONJURE_PYTHON,
+                        OsUtils.generatorDependency(project, ConjurePlugin.CONJURE_PYTHON_BINARY));
 
         ExtractExecutableTask extractConjurePythonTask = ExtractExecutableTask.createExtractTask(
                 project, "extractConjurePython", conjurePythonConfig, conjurePythonDir, "conjure-python");
 
+        FileCollection conjureIrFiles =
+                prunedDefinitions(project, PYTHON_PROJECT_NAME, conjureIrConfiguration, filterSupplier);
         project.getTasks().create("generatePython", ConjureLocalGenerateTask.class, task -> {
             task.setDescription("Generates Python files from remote Conjure definitions.");
             task.setGroup(ConjurePlugin.TASK_GROUP);
-            task.setSource(conjureIrConfiguration);
+            task.setSource(conjureIrFiles);
             task.setExecutablePath(extractConjurePythonTask::getExecutable);
             task.setOutputDirectory(subproj.file("python"));
             task.setOptions(() -> optionsSupplier.get().addFlag("rawSource"));
@@ -227,6 +270,7 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
     private void setupConjureTypeScript(
             Project project,
             Supplier<GeneratorOptions> optionsSupplier,
+            Supplier<GeneratorFilter> filterSupplier,
             Configuration conjureIrConfiguration,
             Task generateConjure) {
         Project subproj = project.findProject(TYPESCRIPT_PROJECT_NAME);
@@ -237,7 +281,10 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
                 project.getConfigurations().maybeCreate(ConjurePlugin.CONJURE_TYPESCRIPT);
         File conjureTypescriptDir = new File(project.getBuildDir(), ConjurePlugin.CONJURE_TYPESCRIPT);
         File srcDirectory = subproj.file("src");
-        project.getDependencies().add(ConjurePlugin.CONJURE_TYPESCRIPT, ConjurePlugin.CONJURE_TYPESCRIPT_BINARY);
+        project.getDependencies()
+                .add(
+                        ConjurePlugin.CONJURE_TYPESCRIPT,
+                        OsUtils.generatorDependency(project, ConjurePlugin.CONJURE_TYPESCRIPT_BINARY));
 
         ExtractExecutableTask extractConjureTypeScriptTask = ExtractExecutableTask.createExtractTask(
                 project,
@@ -246,11 +293,14 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
                 conjureTypescriptDir,
                 "conjure-typescript");
 
+        FileCollection conjureIrFiles =
+                prunedDefinitions(project, TYPESCRIPT_PROJECT_NAME, conjureIrConfiguration, filterSupplier);
         project.getTasks().create("generateTypeScript", ConjureLocalGenerateTask.class, task -> {
             task.setDescription("Generate Typescript bindings from remote Conjure definitions.");
             task.setGroup(ConjurePlugin.TASK_GROUP);
-            task.setSource(conjureIrConfiguration);
+            task.setSource(conjureIrFiles);
             task.setExecutablePath(extractConjureTypeScriptTask::getExecutable);
+            task.setUseGeneratorServer(NodeGeneratorPool.registerIfEnabled(project));
             task.setOptions(() -> optionsSupplier.get().addFlag("rawSource"));
             task.setOutputDirectory(srcDirectory);
             task.dependsOn(extractConjureTypeScriptTask);
@@ -258,6 +308,19 @@ public final class ConjureLocalPlugin implements Plugin<Project> {
         });
     }
 
+    private static FileCollection prunedDefinitions(
+            Project project,
+            String generator,
+            Configuration conjureIrConfiguration,
+            Supplier<GeneratorFilter> filterSupplier) {
+        return PruneConjureIrTask.prunedDefinitions(
+                project,
+                GUtil.toLowerCamelCase("pruneConjureIr " + generator),
+                DecompressConjureIrTask.decompressedDefinitions(project, conjureIrConfiguration),
+                filterSupplier,
+                new File(project.getBuildDir(), "conjure-pruned/" + generator));
+    }
+
     private static Supplier<GeneratorOptions> immutableOptionsSupplier(Supplier<GeneratorOptions> supplier) {
         return () -> new GeneratorOptions(supplier.get());
     }
@@ -18,6 +18,7 @@ package com.palantir.gradle.conjure;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
 import com.palantir.gradle.conjure.api.ConjureExtension;
@@ -26,6 +27,7 @@ import com.palantir.gradle.conjure.api.GeneratorOptions;
 import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -40,7 +42,10 @@ import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
 import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ConfigurationVariant;
 import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.type.ArtifactTypeDefinition;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.Directory;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.SourceDirectorySet;
@@ -48,10 +53,16 @@ import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.plugins.BasePlugin;
 import org.gradle.api.plugins.JavaLibraryPlugin;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.plugins.JavaPluginConvention;
 import org.gradle.api.provider.Provider;
+import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.Copy;
 import org.gradle.api.tasks.Exec;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.SourceSetContainer;
+import org.gradle.api.tasks.compile.CompileOptions;
+import org.gradle.api.tasks.compile.JavaCompile;
 import org.gradle.plugins.ide.eclipse.EclipsePlugin;
 import org.gradle.plugins.ide.idea.IdeaPlugin;
 import org.gradle.plugins.ide.idea.model.IdeaModule;
@@ -98,6 +109,17 @@ public final class ConjurePlugin implements Plugin<Project> {
     static final String CONJURE_GENERATORS_CONFIGURATION_NAME = "conjureGenerators";
 
     static final String CONJURE_GENERATOR_DEP_PREFIX = "conjure-";
+
+    /**
+     * Gradle property which, when true, resolves and extracts the conjure compiler and first-class generators once on
+     * the root project instead of once per API project.
+     */
+    static final String SHARED_GENERATORS_PROPERTY = "com.palantir.conjure.sharedGenerators";
+    static final String GENERATED_SOURCE_SET_PROPERTY = "com.palantir.conjure.java.generatedSourceSet";
+    static final String GENERATED_SOURCE_SET_NAME = "conjureGenerated";
+    static final String IDE_FAST_SYNC_PROPERTY = "com.palantir.conjure.ideFastSync";
+    static final String COMPILE_SHARDS_PROPERTY = "com.palantir.conjure.java.compileShards";
+    private static final ImmutableSet<String> IDE_TASK_NAMES = ImmutableSet.of("ideaModule", "eclipseClasspath");
     /** Make the old Java8 @Generated annotation available even when compiling with Java9+. */
     static final String ANNOTATION_API = "jakarta.annotation:jakarta.annotation-api:1.3.5";
 
@@ -112,13 +134,16 @@ public final class ConjurePlugin implements Plugin<Project> {
                 project.getConfigurations().maybeCreate(CONJURE_GENERATORS_CONFIGURATION_NAME);
 
         // Set up conjure compile task
+        ConjureReports.registerReportTask(project);
+        ConjureBuildMetrics.register(project);
         Task compileConjure = project.getTasks().create("compileConjure", DefaultTask.class);
         compileConjure.setDescription("Generates code for your API definitions in src/main/conjure/**/*.yml");
         compileConjure.setGroup(TASK_GROUP);
-        applyDependencyForIdeTasks(project, compileConjure);
+        applyDependencyForIdeTasks(project, compileConjure, false);
 
         Copy copyConjureSourcesTask = getConjureSources(project);
-        Task compileIrTask = createIrTasks(project, conjureProductDependenciesExtension, copyConjureSourcesTask);
+        CompileIrTask compileIrTask =
+                createIrTasks(project, conjureProductDependenciesExtension, copyConjureSourcesTask);
         GenerateConjureServiceDependenciesTask productDependencyTask = project.getTasks()
                 .create("generateConjureServiceDependencies", GenerateConjureServiceDependenciesTask.class, task -> {
                     task.setConjureServiceDependencies(conjureProductDependenciesExtension::getProductDependencies);
@@ -144,23 +169,34 @@ public final class ConjurePlugin implements Plugin<Project> {
                 compileConjure,
                 compileIrTask,
                 conjureGeneratorsConfiguration);
+
+        project.getTasks().register("conjureWatch", ConjureWatchTask.class, task -> {
+            task.setDescription("Regenerates code whenever a definition in src/main/conjure changes, when run with "
+                    + "--continuous.");
+            task.setGroup(TASK_GROUP);
+            task.dependsOn(compileConjure);
+        });
     }
 
     private static void setupConjureJavaProject(
             Project project,
             Supplier<GeneratorOptions> optionsSupplier,
             Task compileConjure,
-            Task compileIrTask,
+            CompileIrTask compileIrTask,
             ConjureProductDependenciesExtension productDependencyExt) {
         if (JAVA_PROJECT_SUFFIXES.stream()
                 .anyMatch(suffix -> project.findProject(project.getName() + suffix) != null)) {
-            Configuration conjureJavaConfig = project.getConfigurations().maybeCreate(CONJURE_JAVA);
-            File conjureJavaDir = new File(project.getBuildDir(), CONJURE_JAVA);
-            project.getDependencies().add(CONJURE_JAVA, CONJURE_JAVA_BINARY);
-            ExtractExecutableTask extractJavaTask = ExtractExecutableTask.createExtractTask(
-                    project, "extractConjureJava", conjureJavaConfig, conjureJavaDir, "conjure-java");
-
-            Task checkVersions = project.getTasks().create("checkConjureJavaVersions", CheckConjureJavaVersions.class);
+            ExtractExecutableTask extractJavaTask = createGeneratorExtractTask(
+                    project, CONJURE_JAVA, CONJURE_JAVA_BINARY, "extractConjureJava", "conjure-java");
+
+            Project generatorProject = generatorDistributionProject(project);
+            Task checkVersions = project.getTasks()
+                    .create("checkConjureJavaVersions", CheckConjureJavaVersions.class, task -> {
+                        task.getConjureJavaVersion()
+                                .set(project.provider(() -> CheckConjureJavaVersions.findResolvedVersionOf(
+                                        generatorProject.getConfigurations().getByName(CONJURE_JAVA),
+                                        CONJURE_JAVA_BINARY)));
+                    });
             extractJavaTask.dependsOn(checkVersions);
 
             setupConjureObjectsProject(project, optionsSupplier, compileConjure, compileIrTask, extractJavaTask);
@@ -205,7 +241,7 @@ public final class ConjurePlugin implements Plugin<Project> {
                 task.setSource(compileIrTask);
 
                 compileConjure.dependsOn(task);
-                subproj.getTasks().getByName("compileJava").dependsOn(task);
+                generatedSourcesCompileTask(subproj).dependsOn(task);
                 applyDependencyForIdeTasks(subproj, task);
                 task.dependsOn(createWriteGitignoreTask(
                         subproj, "gitignoreConjureDialogue", subproj.getProjectDir(), JAVA_GITIGNORE_CONTENTS));
@@ -224,7 +260,7 @@ public final class ConjurePlugin implements Plugin<Project> {
             Project project,
             Supplier<GeneratorOptions> optionsSupplier,
             Task compileConjure,
-            Task compileIrTask,
+            CompileIrTask compileIrTask,
             ExtractExecutableTask extractJavaTask) {
         String objectsProjectName = project.getName() + JAVA_OBJECTS_SUFFIX;
         if (project.findProject(objectsProjectName) != null) {
@@ -241,7 +277,7 @@ public final class ConjurePlugin implements Plugin<Project> {
                     task.setSource(compileIrTask);
 
                     compileConjure.dependsOn(task);
-                    subproj.getTasks().getByName("compileJava").dependsOn(task);
+                    generatedSourcesCompileTask(subproj).dependsOn(task);
                     applyDependencyForIdeTasks(subproj, task);
                     task.dependsOn(createWriteGitignoreTask(
                             subproj, "gitignoreConjureObjects", subproj.getProjectDir(), JAVA_GITIGNORE_CONTENTS));
@@ -250,6 +286,16 @@ public final class ConjurePlugin implements Plugin<Project> {
                 Task cleanTask = project.getTasks().findByName(TASK_CLEAN);
                 cleanTask.dependsOn(project.getTasks().findByName("cleanCompileConjureObjects"));
                 subproj.getDependencies().add("api", "com.palantir.conjure.java:conjure-lib");
+
+                Object shardCount = subproj.findProperty(COMPILE_SHARDS_PROPERTY);
+                if (shardCount != null && Integer.parseInt(shardCount.toString()) > 1) {
+                    setupCompileShards(
+                            subproj,
+                            optionsSupplier,
+                            project.getTasks().getByName("compileConjureObjects"),
+                            compileIrTask,
+                            Integer.parseInt(shardCount.toString()));
+                }
             });
         }
     }
@@ -286,7 +332,7 @@ public final class ConjurePlugin implements Plugin<Project> {
                 task.setSource(compileIrTask);
 
                 compileConjure.dependsOn(task);
-                subproj.getTasks().getByName("compileJava").dependsOn(task);
+                generatedSourcesCompileTask(subproj).dependsOn(task);
                 applyDependencyForIdeTasks(subproj, task);
                 task.dependsOn(createWriteGitignoreTask(
                         subproj, "gitignoreConjureRetrofit", subproj.getProjectDir(), JAVA_GITIGNORE_CONTENTS));
@@ -335,7 +381,7 @@ public final class ConjurePlugin implements Plugin<Project> {
                 task.setSource(compileIrTask);
 
                 compileConjure.dependsOn(task);
-                subproj.getTasks().getByName("compileJava").dependsOn(task);
+                generatedSourcesCompileTask(subproj).dependsOn(task);
                 applyDependencyForIdeTasks(subproj, task);
                 task.dependsOn(createWriteGitignoreTask(
                         subproj, "gitignoreConjureJersey", subproj.getProjectDir(), JAVA_GITIGNORE_CONTENTS));
@@ -380,7 +426,7 @@ public final class ConjurePlugin implements Plugin<Project> {
                     task.setSource(compileIrTask);
 
                     compileConjure.dependsOn(task);
-                    subproj.getTasks().getByName("compileJava").dependsOn(task);
+                    generatedSourcesCompileTask(subproj).dependsOn(task);
                     applyDependencyForIdeTasks(subproj, task);
                     task.dependsOn(createWriteGitignoreTask(
                             subproj, "gitignoreConjureUndertow", subproj.getProjectDir(), JAVA_GITIGNORE_CONTENTS));
@@ -431,18 +477,15 @@ public final class ConjurePlugin implements Plugin<Project> {
             GenerateConjureServiceDependenciesTask productDependencyTask) {
         String typescriptProjectName = project.getName() + "-typescript";
         if (project.findProject(typescriptProjectName) != null) {
-            Configuration conjureTypeScriptConfig = project.getConfigurations().maybeCreate(CONJURE_TYPESCRIPT);
             project.project(typescriptProjectName, subproj -> {
-                applyDependencyForIdeTasks(subproj, compileConjure);
-                File conjureTypescriptDir = new File(project.getBuildDir(), CONJURE_TYPESCRIPT);
+                applyDependencyForIdeTasks(subproj, compileConjure, false);
                 File srcDirectory = subproj.file("src");
-                project.getDependencies().add("conjureTypeScript", CONJURE_TYPESCRIPT_BINARY);
 
-                ExtractExecutableTask extractConjureTypeScriptTask = ExtractExecutableTask.createExtractTask(
+                ExtractExecutableTask extractConjureTypeScriptTask = createGeneratorExtractTask(
                         project,
+                        CONJURE_TYPESCRIPT,
+                        CONJURE_TYPESCRIPT_BINARY,
                         "extractConjureTypeScript",
-                        conjureTypeScriptConfig,
-                        conjureTypescriptDir,
                         "conjure-typescript");
                 Task compileConjureTypeScript = project.getTasks()
                         .create("compileConjureTypeScript", CompileConjureTypeScriptTask.class, task -> {
@@ -451,6 +494,7 @@ public final class ConjurePlugin implements Plugin<Project> {
                             task.setGroup(TASK_GROUP);
                             task.setSource(compileIrTask);
                             task.setExecutablePath(extractConjureTypeScriptTask::getExecutable);
+                            task.setUseGeneratorServer(NodeGeneratorPool.registerIfEnabled(project));
                             task.setProductDependencyFile(productDependencyTask.getOutputFile());
                             task.setOutputDirectory(srcDirectory);
                             task.setOptions(options);
@@ -461,30 +505,32 @@ public final class ConjurePlugin implements Plugin<Project> {
                             task.dependsOn(productDependencyTask);
                         });
 
-                String npmCommand = OsUtils.NPM_COMMAND_NAME;
-                Task installTypeScriptDependencies = project.getTasks()
-                        .create("installTypeScriptDependencies", Exec.class, task -> {
-                            task.commandLine(npmCommand, "install", "--no-package-lock", "--no-production");
-                            task.workingDir(srcDirectory);
-                            task.dependsOn(compileConjureTypeScript);
-                            task.getInputs().file(new File(srcDirectory, "package.json"));
-                            task.getOutputs().dir(new File(srcDirectory, "node_modules"));
+                Task installTypeScriptDependencies =
+                        createInstallTypeScriptDependenciesTask(project, srcDirectory, compileConjureTypeScript);
+                CompileTypeScriptTask compileTypeScript = project.getTasks()
+                        .create("compileTypeScript", CompileTypeScriptTask.class, task -> {
+                            task.setDescription(
+                                    "Runs `npm tsc` to compile generated TypeScript files into JavaScript files.");
+                            task.setGroup(TASK_GROUP);
+                            task.setSrcDirectory(() -> srcDirectory);
+                            task.setOutputDirectory(() -> new File(project.getBuildDir(), "typescript"));
+                            task.dependsOn(installTypeScriptDependencies);
                         });
-                Task compileTypeScript = project.getTasks().create("compileTypeScript", Exec.class, task -> {
-                    task.setDescription("Runs `npm tsc` to compile generated TypeScript files into JavaScript files.");
-                    task.setGroup(TASK_GROUP);
-                    task.commandLine(npmCommand, "run-script", "build");
-                    task.workingDir(srcDirectory);
-                    task.dependsOn(installTypeScriptDependencies);
-                });
+                // The package is published from the source directory, so the compiled files are copied back into it
+                Copy copyCompiledTypeScript = project.getTasks()
+                        .create("copyCompiledTypeScript", Copy.class, task -> {
+                            task.from(compileTypeScript, spec -> spec.exclude(CompileTypeScriptTask.BUILD_INFO_FILE));
+                            task.into(srcDirectory);
+                        });
+                compileTypeScript.finalizedBy(copyCompiledTypeScript);
                 Task publishTypeScript = project.getTasks().create("publishTypeScript", Exec.class, task -> {
                     task.setDescription("Runs `npm publish` to publish a TypeScript package "
                             + "generated from your Conjure definitions.");
                     task.setGroup(TASK_GROUP);
-                    task.commandLine(npmCommand, "publish");
+                    task.commandLine(OsUtils.NPM_COMMAND_NAME, "publish");
                     task.workingDir(srcDirectory);
                     task.dependsOn(compileConjureTypeScript);
-                    task.dependsOn(compileTypeScript);
+                    task.dependsOn(copyCompiledTypeScript);
                 });
                 subproj.afterEvaluate(
                         p -> subproj.getTasks().maybeCreate("publish").dependsOn(publishTypeScript));
@@ -494,21 +540,36 @@ public final class ConjurePlugin implements Plugin<Project> {
         }
     }
 
+    /** Runs {@code npm install}, or restores the result of an earlier run from the {@link NodeModulesCache}. */
+    private static Task createInstallTypeScriptDependenciesTask(
+            Project project, File srcDirectory, Task compileConjureTypeScript) {
+        if (isPropertyEnabled(project, NodeModulesCache.ENABLED_PROPERTY)) {
+            return project.getTasks()
+                    .create("installTypeScriptDependencies", InstallTypeScriptDependenciesTask.class, task -> {
+                        task.setSrcDirectory(() -> srcDirectory);
+                        task.dependsOn(compileConjureTypeScript);
+                    });
+        }
+        return project.getTasks().create("installTypeScriptDependencies", Exec.class, task -> {
+            task.commandLine(OsUtils.NPM_COMMAND_NAME, "install", "--no-package-lock", "--no-production");
+            task.workingDir(srcDirectory);
+            task.dependsOn(compileConjureTypeScript);
+            task.getInputs().file(new File(srcDirectory, "package.json"));
+            task.getOutputs().dir(new File(srcDirectory, "node_modules"));
+        });
+    }
+
     private static void setupConjurePythonProject(
             Project project, Supplier<GeneratorOptions> options, Task compileConjure, Task compileIrTask) {
         String pythonProjectName = project.getName() + "-python";
         if (project.findProject(pythonProjectName) != null) {
-            Configuration conjurePythonConfig = project.getConfigurations().maybeCreate(CONJURE_PYTHON);
-
             project.project(pythonProjectName, subproj -> {
-                applyDependencyForIdeTasks(subproj, compileConjure);
-                File conjurePythonDir = new File(project.getBuildDir(), CONJURE_PYTHON);
+                applyDependencyForIdeTasks(subproj, compileConjure, false);
                 File buildDir = new File(project.getBuildDir(), "python");
                 File distDir = new File(buildDir, "dist");
-                project.getDependencies().add(CONJURE_PYTHON, CONJURE_PYTHON_BINARY);
-                ExtractExecutableTask extractConjurePythonTask = ExtractExecutableTask.createExtractTask(
-                        project, "extractConjurePython", conjurePythonConfig, conjurePythonDir, "conjure-python");
-                Task compileConjurePython = project.getTasks()
+                ExtractExecutableTask extractConjurePythonTask = createGeneratorExtractTask(
+                        project, CONJURE_PYTHON, CONJURE_PYTHON_BINARY, "extractConjurePython", "conjure-python");
+                CompileConjurePythonTask compileConjurePython = project.getTasks()
                         .create("compileConjurePython", CompileConjurePythonTask.class, task -> {
                             task.setDescription("Generates Python files from your Conjure definitions.");
                             task.setGroup(TASK_GROUP);
@@ -521,31 +582,28 @@ public final class ConjurePlugin implements Plugin<Project> {
                                     subproj, "gitignoreConjurePython", subproj.getProjectDir(), "/python/\n"));
                             task.dependsOn(extractConjurePythonTask);
                         });
-                project.getTasks().create("buildWheel", Exec.class, task -> {
-                    task.setDescription("Runs `python setup.py sdist bdist_wheel --universal` to build a python wheel "
-                            + "generated from your Conjure definitions.");
-                    task.setGroup(TASK_GROUP);
-                    task.commandLine(
-                            "python",
-                            "setup.py",
-                            "build",
-                            "--build-base",
-                            buildDir,
-                            "egg_info",
-                            "--egg-base",
-                            buildDir,
-                            "sdist",
-                            "--dist-dir",
-                            distDir,
-                            "bdist_wheel",
-                            "--universal",
-                            "--dist-dir",
-                            distDir);
-                    task.workingDir(subproj.file("python"));
-                    task.dependsOn(compileConjurePython);
-                    Task cleanTask = project.getTasks().findByName(TASK_CLEAN);
-                    cleanTask.dependsOn(project.getTasks().findByName("cleanCompileConjurePython"));
-                });
+                if (isPropertyEnabled(project, BuildPythonDistributionsTask.ENABLED_PROPERTY)) {
+                    project.getTasks().create("buildWheel", BuildPythonDistributionsTask.class, task -> {
+                        task.setDescription("Packages the Python files generated from your Conjure definitions into "
+                                + "a python wheel and source distribution.");
+                        task.setGroup(TASK_GROUP);
+                        task.setPythonDirectory(() -> subproj.file("python"));
+                        task.setDistDirectory(() -> distDir);
+                        task.dependsOn(compileConjurePython);
+                    });
+                } else {
+                    project.getTasks().create("buildWheel", BuildWheelTask.class, task -> {
+                        task.setDescription("Runs `python setup.py sdist bdist_wheel --universal` to build a python "
+                                + "wheel generated from your Conjure definitions.");
+                        task.setGroup(TASK_GROUP);
+                        task.setPythonDirectory(() -> subproj.file("python"));
+                        task.setBuildDirectory(() -> buildDir);
+                        task.setDistDirectory(() -> distDir);
+                        task.dependsOn(compileConjurePython);
+                    });
+                }
+                Task cleanTask = project.getTasks().findByName(TASK_CLEAN);
+                cleanTask.dependsOn(project.getTasks().findByName("cleanCompileConjurePython"));
             });
         }
     }
@@ -624,15 +682,190 @@ public final class ConjurePlugin implements Plugin<Project> {
         });
     }
 
+    /**
+     * Creates the configuration and extract task for a generator distribution. If {@value #SHARED_GENERATORS_PROPERTY}
+     * is enabled, these are created once on the root project and shared by every API project, so each distribution is
+     * only resolved and extracted once per build.
+     */
+    private static ExtractExecutableTask createGeneratorExtractTask(
+            Project project, String configurationName, String binary, String taskName, String executableName) {
+        Project generatorProject = generatorDistributionProject(project);
+        Task existingTask = generatorProject.getTasks().findByName(taskName);
+        if (existingTask != null) {
+            return (ExtractExecutableTask) existingTask;
+        }
+
+        Configuration configuration = generatorProject.getConfigurations().maybeCreate(configurationName);
+        generatorProject.getDependencies().add(configurationName, OsUtils.generatorDependency(project, binary));
+        return ExtractExecutableTask.createExtractTask(
+                generatorProject,
+                taskName,
+                configuration,
+                new File(generatorProject.getBuildDir(), configurationName),
+                executableName);
+    }
+
+    private static Project generatorDistributionProject(Project project) {
+        return isPropertyEnabled(project, SHARED_GENERATORS_PROPERTY) ? project.getRootProject() : project;
+    }
+
+    static boolean isPropertyEnabled(Project project, String propertyName) {
+        return Boolean.parseBoolean(String.valueOf(project.findProperty(propertyName)));
+    }
+
+    /**
+     * Adds the generated sources to the {@code main} source set. If {@value #GENERATED_SOURCE_SET_PROPERTY} is set,
+     * they are instead compiled by their own {@value #GENERATED_SOURCE_SET_NAME} source set, whose classes become part
+     * of {@code main}'s output, so changes to hand-written code don't recompile the generated code and vice versa.
+     */
     static void addGeneratedToMainSourceSet(Project subproj) {
         JavaPluginConvention javaPlugin = subproj.getConvention().findPlugin(JavaPluginConvention.class);
-        javaPlugin.getSourceSets().getByName("main").getJava().srcDir(subproj.files(JAVA_GENERATED_SOURCE_DIRNAME));
+        SourceSet main = javaPlugin.getSourceSets().getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        if (!isPropertyEnabled(subproj, GENERATED_SOURCE_SET_PROPERTY)) {
+            main.getJava().srcDir(subproj.files(JAVA_GENERATED_SOURCE_DIRNAME));
+            return;
+        }
+
+        SourceSet generated = javaPlugin.getSourceSets().create(GENERATED_SOURCE_SET_NAME);
+        generated.getJava().setSrcDirs(Collections.singleton(subproj.file(JAVA_GENERATED_SOURCE_DIRNAME)));
+        generated.getResources().setSrcDirs(Collections.emptySet());
+        subproj.getConfigurations()
+                .getByName(generated.getCompileClasspathConfigurationName())
+                .extendsFrom(subproj.getConfigurations().getByName(main.getCompileClasspathConfigurationName()));
+
+        File generatedClasses = generated.getJava().getOutputDir();
+        String compileGenerated = generated.getCompileJavaTaskName();
+        main.getOutput().dir(Collections.singletonMap("builtBy", compileGenerated), generatedClasses);
+        main.setCompileClasspath(main.getCompileClasspath().plus(generated.getOutput().getClassesDirs()));
+
+        addClassesVariantArtifact(subproj, generatedClasses, compileGenerated);
+    }
+
+    /**
+     * Compiles the generated sources of each self-contained group of types in one of {@code shardCount}
+     * {@link JavaCompile} tasks, which run in parallel and are cached independently, and adds their classes to the
+     * {@code main} output. The remaining generated sources are compiled as usual, against the classes of all shards.
+     */
+    private static void setupCompileShards(
+            Project subproj,
+            Supplier<GeneratorOptions> optionsSupplier,
+            Task compileConjureObjects,
+            CompileIrTask compileIrTask,
+            int shardCount) {
+        PlanConjureShardsTask planShards =
+                subproj.getTasks().create("planConjureShards", PlanConjureShardsTask.class, task -> {
+                    task.getIrFile().set(compileIrTask.getOutputIrFile());
+                    task.getShardCount().set(shardCount);
+                    task.getPackagePrefix().set(subproj.provider(() -> optionsSupplier.get().has("packagePrefix")
+                            ? String.valueOf(optionsSupplier.get().get("packagePrefix"))
+                            : ""));
+                    task.dependsOn(compileIrTask);
+                });
+        JavaCompile compileGenerated = (JavaCompile) generatedSourcesCompileTask(subproj);
+
+        SourceSetContainer sourceSets =
+                subproj.getConvention().getPlugin(JavaPluginConvention.class).getSourceSets();
+        SourceSet main = sourceSets.getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+        Configuration compileClasspath =
+                subproj.getConfigurations().getByName(main.getCompileClasspathConfigurationName());
+        ConfigurableFileCollection shardClasses = subproj.files();
+        for (int i = 0; i < shardCount; i++) {
+            int shard = i;
+            JavaCompile compileShard = subproj.getTasks()
+                    .create("compileConjureShard" + shard, JavaCompile.class, task -> {
+                        task.setDescription(String.format("Compiles shard %d of the generated Java sources.", shard));
+                        task.setSource(subproj.fileTree(JAVA_GENERATED_SOURCE_DIRNAME)
+                                .matching(files -> files.include(planShards.inShard(shard))));
+                        task.setClasspath(compileClasspath);
+                        task.setDestinationDir(new File(subproj.getBuildDir(), "classes/java/conjureShard" + shard));
+                        task.dependsOn(planShards, compileConjureObjects);
+                    });
+            // The generated sources are configured through their usual compile task, which anything may configure up
+            // until the task graph is built, while the shard's settings must be final before its inputs are recorded
+            subproj.getGradle().getTaskGraph().whenReady(_graph -> copyCompileSettings(compileGenerated, compileShard));
+            shardClasses.from(compileShard.getDestinationDir()).builtBy(compileShard);
+            main.getOutput()
+                    .dir(Collections.singletonMap("builtBy", compileShard.getName()), compileShard.getDestinationDir());
+            addClassesVariantArtifact(subproj, compileShard.getDestinationDir(), compileShard.getName());
+        }
+
+        compileGenerated.exclude(Specs.negate(planShards.inShard(-1)));
+        compileGenerated.dependsOn(planShards);
+        SourceSet generated = sourceSets.findByName(GENERATED_SOURCE_SET_NAME);
+        for (SourceSet sourceSet : generated != null ? ImmutableList.of(main, generated) : ImmutableList.of(main)) {
+            sourceSet.setCompileClasspath(sourceSet.getCompileClasspath().plus(shardClasses));
+        }
+    }
+
+    /** Makes {@code to} compile like {@code from}, apart from its sources, classpath and outputs. */
+    private static void copyCompileSettings(JavaCompile from, JavaCompile to) {
+        to.setSourceCompatibility(from.getSourceCompatibility());
+        to.setTargetCompatibility(from.getTargetCompatibility());
+        CompileOptions fromOptions = from.getOptions();
+        CompileOptions toOptions = to.getOptions();
+        toOptions.setCompilerArgs(new ArrayList<>(fromOptions.getCompilerArgs()));
+        toOptions.getCompilerArgumentProviders().clear();
+        toOptions.getCompilerArgumentProviders().addAll(fromOptions.getCompilerArgumentProviders());
+        toOptions.setAnnotationProcessorPath(fromOptions.getAnnotationProcessorPath());
+        toOptions.setBootstrapClasspath(fromOptions.getBootstrapClasspath());
+        toOptions.setExtensionDirs(fromOptions.getExtensionDirs());
+        toOptions.setEncoding(fromOptions.getEncoding());
+        toOptions.setDebug(fromOptions.isDebug());
+        toOptions.getDebugOptions().setDebugLevel(fromOptions.getDebugOptions().getDebugLevel());
+        toOptions.setDeprecation(fromOptions.isDeprecation());
+        toOptions.setWarnings(fromOptions.isWarnings());
+        toOptions.setFailOnError(fromOptions.isFailOnError());
+        toOptions.setVerbose(fromOptions.isVerbose());
+        toOptions.setIncremental(fromOptions.isIncremental());
+        toOptions.setFork(fromOptions.isFork());
+        toOptions.getForkOptions().setExecutable(fromOptions.getForkOptions().getExecutable());
+        toOptions.getForkOptions().setJavaHome(fromOptions.getForkOptions().getJavaHome());
+        toOptions.getForkOptions().setMemoryInitialSize(fromOptions.getForkOptions().getMemoryInitialSize());
+        toOptions.getForkOptions().setMemoryMaximumSize(fromOptions.getForkOptions().getMemoryMaximumSize());
+        toOptions.getForkOptions().setJvmArgs(new ArrayList<>(fromOptions.getForkOptions().getJvmArgs()));
+    }
+
+    /** Projects depending on this one within the build consume the classes directories directly. */
+    private static void addClassesVariantArtifact(Project subproj, File classesDirectory, String builtBy) {
+        for (String elements : ImmutableList.of(
+                JavaPlugin.API_ELEMENTS_CONFIGURATION_NAME, JavaPlugin.RUNTIME_ELEMENTS_CONFIGURATION_NAME)) {
+            ConfigurationVariant classes = subproj.getConfigurations()
+                    .getByName(elements)
+                    .getOutgoing()
+                    .getVariants()
+                    .findByName("classes");
+            if (classes != null) {
+                classes.artifact(classesDirectory, artifact -> {
+                    artifact.setType(ArtifactTypeDefinition.JVM_CLASS_DIRECTORY);
+                    artifact.builtBy(builtBy);
+                });
+            }
+        }
+    }
+
+    /** The task which compiles the generated sources and so must run after they are generated. */
+    static Task generatedSourcesCompileTask(Project subproj) {
+        SourceSet generated = subproj.getConvention()
+                .getPlugin(JavaPluginConvention.class)
+                .getSourceSets()
+                .findByName(GENERATED_SOURCE_SET_NAME);
+        return subproj.getTasks()
+                .getByName(generated != null ? generated.getCompileJavaTaskName() : JavaPlugin.COMPILE_JAVA_TASK_NAME);
     }
 
     static void applyDependencyForIdeTasks(Project project, Task compileConjure) {
+        applyDependencyForIdeTasks(project, compileConjure, true);
+    }
+
+    /**
+     * Makes the IDE tasks of the project depend on {@code compileConjure}. If {@value #IDE_FAST_SYNC_PROPERTY} is set,
+     * only tasks which generate Java sources are run on IDE sync.
+     */
+    static void applyDependencyForIdeTasks(Project project, Task compileConjure, boolean generatesJava) {
+        boolean runOnIdeSync = generatesJava || !isPropertyEnabled(project, IDE_FAST_SYNC_PROPERTY);
         project.getPlugins().withType(IdeaPlugin.class, plugin -> {
             Task task = project.getTasks().findByName("ideaModule");
-            if (task != null) {
+            if (task != null && runOnIdeSync) {
                 task.dependsOn(compileConjure);
             }
 
@@ -647,7 +880,7 @@ public final class ConjurePlugin implements Plugin<Project> {
         });
         project.getPlugins().withType(EclipsePlugin.class, plugin -> {
             Task task = project.getTasks().findByName("eclipseClasspath");
-            if (task != null) {
+            if (task != null && runOnIdeSync) {
                 task.dependsOn(compileConjure);
             }
         });
@@ -663,16 +896,22 @@ public final class ConjurePlugin implements Plugin<Project> {
         WriteGitignoreTask writeGitignoreTask = project.getTasks().create(taskName, WriteGitignoreTask.class);
         writeGitignoreTask.setOutputDirectory(outputDir);
         writeGitignoreTask.setContents(contents);
+        if (isPropertyEnabled(project, IDE_FAST_SYNC_PROPERTY)) {
+            // An IDE sync only needs the sources, so leave existing gitignore files to regular builds
+            writeGitignoreTask.onlyIf(_task -> !isIdeSync(project) || !writeGitignoreTask.getOutputFile().exists());
+        }
         return writeGitignoreTask;
     }
 
-    private static Task createIrTasks(
+    private static boolean isIdeSync(Project project) {
+        return project.getGradle().getTaskGraph().getAllTasks().stream()
+                .anyMatch(task -> IDE_TASK_NAMES.contains(task.getName()));
+    }
+
+    private static CompileIrTask createIrTasks(
             Project project, ConjureProductDependenciesExtension pdepsExtension, Copy copyConjureSourcesTask) {
-        Configuration conjureCompilerConfig = project.getConfigurations().maybeCreate(CONJURE_COMPILER);
-        File conjureCompilerDir = new File(project.getBuildDir(), CONJURE_COMPILER);
-        project.getDependencies().add(CONJURE_COMPILER, CONJURE_COMPILER_BINARY);
-        ExtractExecutableTask extractCompilerTask = ExtractExecutableTask.createExtractTask(
-                project, "extractConjure", conjureCompilerConfig, conjureCompilerDir, "conjure");
+        ExtractExecutableTask extractCompilerTask = createGeneratorExtractTask(
+                project, CONJURE_COMPILER, CONJURE_COMPILER_BINARY, "extractConjure", "conjure");
 
         Provider<Directory> irDir = project.getLayout().getBuildDirectory().dir("conjure-ir");
 
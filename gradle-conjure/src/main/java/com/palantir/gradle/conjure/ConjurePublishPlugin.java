@@ -16,12 +16,18 @@
 
 package com.palantir.gradle.conjure;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import org.gradle.api.GradleException;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
 import org.gradle.api.publish.PublishingExtension;
 import org.gradle.api.publish.maven.MavenPublication;
 import org.gradle.api.publish.maven.plugins.MavenPublishPlugin;
+import org.gradle.util.GUtil;
 
 public final class ConjurePublishPlugin implements Plugin<Project> {
 
@@ -39,14 +45,91 @@ public final class ConjurePublishPlugin implements Plugin<Project> {
         // Configure publishing
         project.getExtensions().configure(PublishingExtension.class, publishing -> {
             publishing.publications(publications -> {
-                publications.create(
-                        "conjure",
-                        MavenPublication.class,
-                        mavenPublication -> mavenPublication.artifact(compileIr.getOutputIrFile(), mavenArtifact -> {
-                            mavenArtifact.builtBy(compileIr);
-                            mavenArtifact.setExtension("conjure.json");
-                        }));
+                publications.create("conjure", MavenPublication.class, mavenPublication -> {
+                    mavenPublication.artifact(compileIr.getOutputIrFile(), mavenArtifact -> {
+                        mavenArtifact.builtBy(compileIr);
+                        mavenArtifact.setExtension("conjure.json");
+                    });
+                    publishIrDigest(project, compileIr, mavenPublication);
+                    if (ConjurePlugin.isPropertyEnabled(project, CompressConjureIrTask.PUBLISH_PROPERTY)) {
+                        publishCompressedIr(project, compileIr, mavenPublication);
+                    }
+                    if (ConjurePlugin.isPropertyEnabled(project, JavaBindingsManifest.PUBLISH_PROPERTY)) {
+                        publishJavaBindings(project, mavenPublication);
+                    }
+                });
             });
         });
     }
+
+    /** Publishes the {@link ConjureIrDigest} of the IR, so consumers can fingerprint it without parsing it. */
+    private static void publishIrDigest(Project project, CompileIrTask compileIr, MavenPublication mavenPublication) {
+        WriteConjureIrDigestTask writeDigest = project.getTasks()
+                .create("writeConjureIrDigest", WriteConjureIrDigestTask.class, task -> {
+                    task.setDescription("Summarises the Conjure IR for publication.");
+                    task.setIrFile(() -> compileIr.getOutputIrFile().getAsFile().get());
+                    task.dependsOn(compileIr);
+                });
+        mavenPublication.artifact(writeDigest.getOutputFile(), mavenArtifact -> {
+            mavenArtifact.builtBy(writeDigest);
+            mavenArtifact.setClassifier(ConjureIrDigest.CLASSIFIER);
+            mavenArtifact.setExtension("json");
+        });
+    }
+
+    /** Publishes a gzipped copy of the IR, which consumers decompress again before generating code. */
+    private static void publishCompressedIr(
+            Project project, CompileIrTask compileIr, MavenPublication mavenPublication) {
+        CompressConjureIrTask compressIr = project.getTasks()
+                .create("compressConjureIr", CompressConjureIrTask.class, task -> {
+                    task.setDescription("Compresses the Conjure IR for publication.");
+                    task.setIrFile(() -> compileIr.getOutputIrFile().getAsFile().get());
+                    task.dependsOn(compileIr);
+                });
+        mavenPublication.artifact(compressIr.getOutputFile(), mavenArtifact -> {
+            mavenArtifact.builtBy(compressIr);
+            mavenArtifact.setExtension(CompressConjureIrTask.EXTENSION);
+        });
+    }
+
+    /**
+     * Publishes the jars of the Java projects as classified artifacts next to the IR, along with a manifest which lets
+     * {@link ConjureJavaLocalCodegenPlugin} use them instead of generating identical bindings itself.
+     */
+    private static void publishJavaBindings(Project project, MavenPublication mavenPublication) {
+        Map<String, ConjureGeneratorTask> generatorsByFlavor = new LinkedHashMap<>();
+        for (String flavor : JavaBindingsManifest.FLAVORS) {
+            Project subproj = project.findProject(project.getName() + "-" + flavor);
+            if (subproj == null) {
+                continue;
+            }
+            mavenPublication.artifact(subproj.getTasks().getByName(JavaPlugin.JAR_TASK_NAME), mavenArtifact -> {
+                mavenArtifact.setClassifier(flavor);
+            });
+            generatorsByFlavor.put(
+                    flavor,
+                    project.getTasks()
+                            .withType(ConjureGeneratorTask.class)
+                            .getByName("compileConjure" + GUtil.toCamelCase(flavor)));
+        }
+        if (generatorsByFlavor.isEmpty()) {
+            return;
+        }
+
+        CheckConjureJavaVersions checkVersions = project.getTasks()
+                .withType(CheckConjureJavaVersions.class)
+                .getByName("checkConjureJavaVersions");
+        WriteJavaBindingsManifestTask writeManifest = project.getTasks()
+                .create("writeJavaBindingsManifest", WriteJavaBindingsManifestTask.class, task -> {
+                    task.getConjureJavaVersion().set(checkVersions.getConjureJavaVersion());
+                    task.setGeneratorArgs(project.provider(() -> ImmutableMap.copyOf(Maps.transformValues(
+                            generatorsByFlavor,
+                            generator -> RenderGeneratorOptions.toArgs(generator.getOptions(), ImmutableMap.of())))));
+                });
+        mavenPublication.artifact(writeManifest.getOutputFile(), mavenArtifact -> {
+            mavenArtifact.builtBy(writeManifest);
+            mavenArtifact.setClassifier(JavaBindingsManifest.CLASSIFIER);
+            mavenArtifact.setExtension("json");
+        });
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.palantir.gradle.conjure.ConjureReports.DefinitionReport;
+import com.palantir.gradle.conjure.ConjureReports.TaskReport;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Project;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+import org.immutables.value.Value;
+
+/**
+ * Aggregates the {@link ConjureReports} of every project in the build and ranks the Conjure definitions by how long
+ * they took to compile and generate code for.
+ */
+public class ConjureReportTask extends DefaultTask {
+    static final String TASK_NAME = "conjureReport";
+    private static final int LOGGED_DEFINITIONS = 10;
+
+    public ConjureReportTask() {
+        setGroup(ConjurePlugin.TASK_GROUP);
+        setDescription("Ranks the Conjure definitions in this build by the cost of compiling and generating them.");
+        getOutputs().upToDateWhen(_task -> false);
+
+        // Include the reports of any Conjure tasks which run as part of the same build
+        getProject().getAllprojects().forEach(project -> {
+            mustRunAfter(project.getTasks().withType(CompileIrTask.class));
+            mustRunAfter(project.getTasks().withType(ConjureGeneratorTask.class));
+            mustRunAfter(project.getTasks().withType(ConjureJavaLocalGeneratorTask.class));
+        });
+    }
+
+    @OutputFile
+    public final File getSummaryFile() {
+        return new File(getProject().getBuildDir(), "reports/conjure-summary.json");
+    }
+
+    @TaskAction
+    public final void aggregate() throws IOException {
+        Map<String, List<DefinitionReport>> reportsByDefinition = new TreeMap<>();
+        Map<String, List<String>> tasksByDefinition = new TreeMap<>();
+        for (Project project : getProject().getAllprojects()) {
+            File[] reportFiles = new File(project.getBuildDir(), ConjureReports.REPORTS_DIRNAME)
+                    .listFiles((_dir, name) -> name.endsWith(".json"));
+            if (reportFiles == null) {
+                continue;
+            }
+            for (File reportFile : reportFiles) {
+                TaskReport report = ConjureReports.OBJECT_MAPPER.readValue(reportFile, TaskReport.class);
+                report.definitions().forEach(definition -> {
+                    reportsByDefinition
+                            .computeIfAbsent(definition.name(), _name -> new ArrayList<>())
+                            .add(definition);
+                    tasksByDefinition
+                            .computeIfAbsent(definition.name(), _name -> new ArrayList<>())
+                            .add(report.task());
+                });
+            }
+        }
+
+        List<DefinitionSummary> ranking = reportsByDefinition.entrySet().stream()
+                .map(entry -> summarize(entry.getKey(), entry.getValue(), tasksByDefinition.get(entry.getKey())))
+                .sorted(Comparator.comparingLong(DefinitionSummary::durationMillis)
+                        .thenComparingLong(DefinitionSummary::generatedBytes)
+                        .reversed())
+                .collect(Collectors.toList());
+
+        File summaryFile = getSummaryFile();
+        Files.createDirectories(summaryFile.getParentFile().toPath());
+        ConjureReports.OBJECT_MAPPER.writeValue(summaryFile, ranking);
+
+        ranking.stream()
+                .limit(LOGGED_DEFINITIONS)
+                .forEach(summary -> getLogger()
+                        .lifecycle(
+                                "{}: {} ms, {} generated files ({} bytes), {} types, {} endpoints",
+                                summary.name(),
+                                summary.durationMillis(),
+                                summary.generatedFiles(),
+                                summary.generatedBytes(),
+                                summary.types(),
+                                summary.endpoints()));
+        getLogger().lifecycle("Full Conjure report written to {}", summaryFile);
+    }
+
+    private static DefinitionSummary summarize(String name, List<DefinitionReport> reports, List<String> tasks) {
+        return ImmutableDefinitionSummary.builder()
+                .name(name)
+                .tasks(tasks)
+                .durationMillis(reports.stream().mapToLong(DefinitionReport::durationMillis).sum())
+                .irBytes(reports.stream().mapToLong(DefinitionReport::irBytes).max().orElse(0))
+                .types(reports.stream().mapToInt(DefinitionReport::types).max().orElse(0))
+                .services(reports.stream().mapToInt(DefinitionReport::services).max().orElse(0))
+                .endpoints(reports.stream().mapToInt(DefinitionReport::endpoints).max().orElse(0))
+                .generatedFiles(reports.stream()
+                        .flatMap(report -> report.generatedFiles().values().stream())
+                        .mapToLong(Long::longValue)
+                        .sum())
+                .generatedBytes(reports.stream()
+                        .flatMap(report -> report.generatedBytes().values().stream())
+                        .mapToLong(Long::longValue)
+                        .sum())
+                .build();
+    }
+
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableDefinitionSummary.class)
+    @JsonSerialize(as = ImmutableDefinitionSummary.class)
+    interface DefinitionSummary {
+        String name();
+
+        /** The tasks which last processed this definition. */
+        List<String> tasks();
+
+        /** Time spent compiling and generating code for this definition across all tasks. */
+        long durationMillis();
+
+        long irBytes();
+
+        int types();
+
+        int services();
+
+        int endpoints();
+
+        long generatedFiles();
+
+        long generatedBytes();
+    }
+}
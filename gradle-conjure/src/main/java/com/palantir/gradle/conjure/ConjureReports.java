@@ -0,0 +1,159 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.palantir.conjure.java.serialization.ObjectMappers;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.immutables.value.Value;
+
+/**
+ * Machine-readable reports of what each Conjure task processed and produced, written to
+ * {@code build/reports/conjure/<task>.json} whenever the task runs, and aggregated by {@link ConjureReportTask}.
+ */
+final class ConjureReports {
+    static final String REPORTS_DIRNAME = "reports/conjure";
+    static final ObjectMapper OBJECT_MAPPER =
+            ObjectMappers.newClientObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private ConjureReports() {}
+
+    /** Describes a definition which took since {@code startNanos} to process, and any files generated from it. */
+    static DefinitionReport measure(File irFile, Optional<File> outputDirectory, long startNanos) {
+        long durationMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        ImmutableDefinitionReport.Builder report = ImmutableDefinitionReport.builder()
+                .name(definitionName(irFile))
+                .irBytes(irFile.length())
+                .durationMillis(durationMillis);
+        try {
+            JsonNode ir = OBJECT_MAPPER.readTree(irFile);
+            report.types(ir.path("types").size()).services(ir.path("services").size());
+            int endpoints = 0;
+            for (JsonNode service : ir.path("services")) {
+                endpoints += service.path("endpoints").size();
+            }
+            report.endpoints(endpoints);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read conjure definition " + irFile, e);
+        }
+
+        if (outputDirectory.isPresent() && outputDirectory.get().isDirectory()) {
+            Map<String, Long> files = new TreeMap<>();
+            Map<String, Long> bytes = new TreeMap<>();
+            try (Stream<Path> paths = Files.walk(outputDirectory.get().toPath())) {
+                for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                    String language = languageOf(path.getFileName().toString());
+                    files.merge(language, 1L, Long::sum);
+                    bytes.merge(language, Files.size(path), Long::sum);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to measure generated files in " + outputDirectory.get(), e);
+            }
+            report.generatedFiles(files).generatedBytes(bytes);
+        }
+        return report.build();
+    }
+
+    static void write(Task task, List<DefinitionReport> definitions) {
+        write(reportFile(task), task.getPath(), definitions);
+    }
+
+    /** Where the report of the given task is written. */
+    static File reportFile(Task task) {
+        return new File(task.getProject().getBuildDir(), REPORTS_DIRNAME + "/" + task.getName() + ".json");
+    }
+
+    static void write(File reportFile, String taskPath, List<DefinitionReport> definitions) {
+        try {
+            Files.createDirectories(reportFile.getParentFile().toPath());
+            OBJECT_MAPPER.writeValue(
+                    reportFile,
+                    ImmutableTaskReport.builder()
+                            .task(taskPath)
+                            .definitions(definitions)
+                            .build());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write conjure report " + reportFile, e);
+        }
+    }
+
+    /** Registers the {@link ConjureReportTask} on the root project, if no other project did so already. */
+    static void registerReportTask(Project project) {
+        Project rootProject = project.getRootProject();
+        if (rootProject.getTasks().findByName(ConjureReportTask.TASK_NAME) == null) {
+            rootProject.getTasks().register(ConjureReportTask.TASK_NAME, ConjureReportTask.class);
+        }
+    }
+
+    private static String definitionName(File irFile) {
+        return irFile.getName().replaceAll("(\\.conjure)?\\.json$", "");
+    }
+
+    private static String languageOf(String fileName) {
+        int extension = fileName.lastIndexOf('.');
+        return extension < 0 ? "other" : fileName.substring(extension + 1).toLowerCase(Locale.ROOT);
+    }
+
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableTaskReport.class)
+    @JsonSerialize(as = ImmutableTaskReport.class)
+    interface TaskReport {
+        String task();
+
+        List<DefinitionReport> definitions();
+    }
+
+    @Value.Immutable
+    @JsonDeserialize(as = ImmutableDefinitionReport.class)
+    @JsonSerialize(as = ImmutableDefinitionReport.class)
+    interface DefinitionReport {
+        String name();
+
+        long irBytes();
+
+        int types();
+
+        int services();
+
+        int endpoints();
+
+        /** Number of generated files by file extension. */
+        Map<String, Long> generatedFiles();
+
+        /** Size of the generated files by file extension. */
+        Map<String, Long> generatedBytes();
+
+        long durationMillis();
+    }
+}
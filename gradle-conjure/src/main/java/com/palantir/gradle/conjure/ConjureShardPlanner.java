@@ -0,0 +1,105 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Splits the types of a Conjure IR into independent compile units. Types which reference each other, directly or
+ * through other types, always end up in the same unit, so that each unit compiles on its own; the resulting groups are
+ * then spread over the units to balance their sizes.
+ */
+final class ConjureShardPlanner {
+    private final Map<String, String> parents = new HashMap<>();
+
+    private ConjureShardPlanner() {}
+
+    /** Returns the qualified names of the types which belong to each of the given number of shards. */
+    static List<Set<String>> plan(JsonNode ir, int shardCount) {
+        ConjureShardPlanner planner = new ConjureShardPlanner();
+        for (JsonNode type : ir.path("types")) {
+            planner.parents.put(typeName(type), typeName(type));
+        }
+        for (JsonNode type : ir.path("types")) {
+            String name = typeName(type);
+            ConjureIrPruner.collectReferences(type, reference -> {
+                if (planner.parents.containsKey(reference)) {
+                    planner.union(name, reference);
+                }
+            });
+        }
+
+        Map<String, Set<String>> groups = new TreeMap<>();
+        for (String name : ImmutableList.copyOf(planner.parents.keySet())) {
+            groups.computeIfAbsent(planner.find(name), _root -> new TreeSet<>()).add(name);
+        }
+        List<Set<String>> largestFirst = new ArrayList<>(groups.values());
+        largestFirst.sort(Comparator.comparingInt(Set<String>::size).reversed());
+
+        List<Set<String>> shards = new ArrayList<>();
+        PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(
+                Comparator.comparingInt((Integer shard) -> shards.get(shard).size()).thenComparing(shard -> shard));
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(new TreeSet<>());
+            leastLoaded.add(shard);
+        }
+        for (Set<String> group : largestFirst) {
+            int shard = leastLoaded.poll();
+            shards.get(shard).addAll(group);
+            leastLoaded.add(shard);
+        }
+        return shards.stream().map(ImmutableSortedSet::copyOf).collect(ImmutableList.toImmutableList());
+    }
+
+    private String find(String name) {
+        String root = name;
+        while (!parents.get(root).equals(root)) {
+            root = parents.get(root);
+        }
+        // Compress the path, so later lookups are cheap
+        String current = name;
+        while (!current.equals(root)) {
+            String next = parents.get(current);
+            parents.put(current, root);
+            current = next;
+        }
+        return root;
+    }
+
+    private void union(String first, String second) {
+        String firstRoot = find(first);
+        String secondRoot = find(second);
+        if (!firstRoot.equals(secondRoot)) {
+            parents.put(firstRoot, secondRoot);
+        }
+    }
+
+    private static String typeName(JsonNode type) {
+        return ConjureIrPruner.qualifiedName(type.path(type.path("type").asText()).path("typeName"));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Finds the types which several Conjure IRs define identically, typically because they all embed the same shared
+ * library of definitions. Generating those IRs side by side produces the same class more than once, so only the copy
+ * generated for one of them, its owner, needs to be compiled.
+ */
+final class ConjureSharedTypes {
+    private ConjureSharedTypes() {}
+
+    /**
+     * Indexes the types of the given IRs by qualified name and structural hash, which ignores documentation. IRs are
+     * identified by the directory their code is generated into.
+     */
+    static SortedMap<String, SortedMap<String, String>> hashesByType(Map<String, JsonNode> irsByDirectory) {
+        SortedMap<String, SortedMap<String, String>> hashesByType = new TreeMap<>();
+        irsByDirectory.forEach((directory, ir) -> {
+            for (JsonNode type : ir.path("types")) {
+                String name = ConjureIrPruner.qualifiedName(type.path(type.path("type").asText()).path("typeName"));
+                hashesByType
+                        .computeIfAbsent(name, _name -> new TreeMap<>())
+                        .put(directory, ConjureIrDigest.hash(ConjureIrDigest.withoutDocs(type)));
+            }
+        });
+        return hashesByType;
+    }
+
+    /**
+     * The owner of each type which at least two IRs define identically, which is the first of those directories in
+     * name order.
+     */
+    static SortedMap<String, String> owners(SortedMap<String, SortedMap<String, String>> hashesByType) {
+        ImmutableSortedMap.Builder<String, String> owners = ImmutableSortedMap.naturalOrder();
+        hashesByType.forEach((name, hashesByDirectory) -> {
+            if (hashesByDirectory.size() > 1 && hashesByDirectory.values().stream().distinct().count() == 1) {
+                owners.put(name, hashesByDirectory.firstKey());
+            }
+        });
+        return owners.build();
+    }
+
+    /**
+     * Whether the given generated Java file is a copy of a shared type which another directory owns. Generators may
+     * prefix packages, so the file is matched by the trailing segments of its path.
+     *
+     * @param sourcePath the path of the file relative to the generated source directory, starting with the directory
+     *     of its IR
+     */
+    static boolean isDuplicate(Map<String, String> ownersBySourcePath, String sourcePath) {
+        int directoryEnd = sourcePath.indexOf('/');
+        if (directoryEnd < 0) {
+            return false;
+        }
+        String directory = sourcePath.substring(0, directoryEnd);
+        for (int start = directoryEnd; start >= 0; start = sourcePath.indexOf('/', start + 1)) {
+            String owner = ownersBySourcePath.get(sourcePath.substring(start + 1));
+            if (owner != null) {
+                return !owner.equals(directory);
+            }
+        }
+        return false;
+    }
+
+    /** Keys the given owners by the path of the Java file generated for each type, such as {@code com/a/Foo.java}. */
+    static Map<String, String> ownersBySourcePath(Map<String, String> owners) {
+        ImmutableSortedMap.Builder<String, String> bySourcePath = ImmutableSortedMap.naturalOrder();
+        owners.forEach((name, owner) -> bySourcePath.put(name.replace('.', '/') + ".java", owner));
+        return bySourcePath.build();
+    }
+}
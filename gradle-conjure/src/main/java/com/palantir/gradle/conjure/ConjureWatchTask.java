@@ -0,0 +1,41 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Regenerates code whenever a definition changes, when run as part of a continuous build ({@code --continuous}).
+ *
+ * <p>The task itself only depends on {@code compileConjure}: Gradle watches the inputs of every task that ran and
+ * executes the build again when any of them changes, so the IR and every generator are brought up to date with their
+ * usual dependencies and up-to-date checks, in the same warm daemon.
+ */
+public class ConjureWatchTask extends DefaultTask {
+    public ConjureWatchTask() {
+        getOutputs().upToDateWhen(_task -> false);
+    }
+
+    @TaskAction
+    public final void watch() {
+        if (getProject().getGradle().getStartParameter().isContinuous()) {
+            getLogger().lifecycle("Regenerated conjure code, waiting for changes");
+        } else {
+            getLogger().lifecycle("Regenerated conjure code once, run conjureWatch with --continuous to keep doing so "
+                    + "whenever a definition changes");
+        }
+    }
+}
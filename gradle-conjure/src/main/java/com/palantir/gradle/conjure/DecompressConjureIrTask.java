@@ -0,0 +1,93 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import org.gradle.api.Project;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SourceTask;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.util.GFileUtils;
+
+/**
+ * Decompresses gzipped IR files, as published by {@link CompressConjureIrTask}, so that consumers can depend on the
+ * smaller {@value CompressConjureIrTask#EXTENSION} artifacts.
+ */
+@CacheableTask
+public class DecompressConjureIrTask extends SourceTask {
+    private static final String TASK_NAME = "decompressConjureIr";
+
+    private File outputDirectory;
+
+    /**
+     * The IR files of the given configuration, where those which are gzipped are replaced by decompressed copies. The
+     * decompressing task is shared by every caller within a project.
+     */
+    static FileCollection decompressedDefinitions(Project project, FileCollection irFiles) {
+        DecompressConjureIrTask task = (DecompressConjureIrTask) project.getTasks().findByName(TASK_NAME);
+        if (task == null) {
+            task = project.getTasks().create(TASK_NAME, DecompressConjureIrTask.class, decompress -> {
+                decompress.setDescription("Decompresses gzipped Conjure definitions.");
+                decompress.setSource(irFiles);
+                decompress.include("*.gz");
+                decompress.setOutputDirectory(new File(project.getBuildDir(), "conjure-ir-decompressed"));
+            });
+        }
+        return project.files(
+                        irFiles.filter(file -> !file.getName().endsWith(".gz")),
+                        project.fileTree(task.getOutputDirectory()))
+                .builtBy(task);
+    }
+
+    // Set the path sensitivity of the sources, which would otherwise default to ABSOLUTE
+    @Override
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public final FileTree getSource() {
+        return super.getSource();
+    }
+
+    @OutputDirectory
+    public final File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public final void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    @TaskAction
+    public final void decompress() throws IOException {
+        GFileUtils.cleanDirectory(outputDirectory);
+        for (File irFile : getSource().getFiles()) {
+            String name = irFile.getName();
+            File target = new File(outputDirectory, name.substring(0, name.length() - ".gz".length()));
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(irFile.toPath()))) {
+                Files.copy(input, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
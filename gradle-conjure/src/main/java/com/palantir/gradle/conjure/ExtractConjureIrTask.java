@@ -0,0 +1,96 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Stages the IR of a single Conjure definition under its unversioned name, so that each consumer only depends on the
+ * definition it generates code for.
+ */
+@CacheableTask
+public class ExtractConjureIrTask extends DefaultTask {
+    private static final Pattern DEFINITION_NAME =
+            Pattern.compile("(.*)-([0-9]+\\.[0-9]+\\.[0-9]+(?:-rc[0-9]+)?(?:-[0-9]+-g[a-f0-9]+)?)(\\.conjure)?\\.json");
+
+    private String definitionName;
+    private FileCollection conjureIrFiles;
+    private Supplier<File> outputFile;
+
+    /** The name of the definition an IR file holds, which is the file name without its version and extension. */
+    static String definitionName(File irFile) {
+        Matcher matcher = DEFINITION_NAME.matcher(irFile.getName());
+        return matcher.matches() ? matcher.group(1) : irFile.getName().replaceFirst("(\\.conjure)?\\.json$", "");
+    }
+
+    @Input
+    public final String getDefinitionName() {
+        return definitionName;
+    }
+
+    final void setDefinitionName(String definitionName) {
+        this.definitionName = definitionName;
+    }
+
+    /** The IR files of this definition, among all the given ones. */
+    @InputFiles
+    @PathSensitive(PathSensitivity.NONE)
+    public final FileCollection getConjureIrFiles() {
+        return conjureIrFiles.filter(file -> definitionName(file).equals(definitionName));
+    }
+
+    final void setConjureIrFiles(FileCollection conjureIrFiles) {
+        this.conjureIrFiles = conjureIrFiles;
+    }
+
+    @OutputFile
+    public final File getOutputFile() {
+        return outputFile.get();
+    }
+
+    final void setOutputFile(Supplier<File> outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    @TaskAction
+    public final void extract() throws IOException {
+        List<File> irFiles = ImmutableList.copyOf(getConjureIrFiles().getFiles());
+        if (irFiles.size() != 1) {
+            throw new GradleException(
+                    String.format("Expected exactly one conjure definition for %s, found %s", definitionName, irFiles));
+        }
+        Files.copy(irFiles.get(0).toPath(), getOutputFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -18,11 +18,16 @@ package com.palantir.gradle.conjure;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.function.Supplier;
@@ -41,25 +46,50 @@ import org.gradle.api.tasks.OutputDirectory;
 import org.gradle.api.tasks.OutputFile;
 import org.gradle.api.tasks.Sync;
 
+/**
+ * Extracts a generator distribution so that its executable ends up at {@code bin/<executableName>} of the output
+ * directory. Distributions are either tar or zip archives with a single root directory containing {@code bin}, or a
+ * single natively compiled executable.
+ */
 public class ExtractExecutableTask extends Sync {
+    private static final int EXECUTABLE_MODE = 0755;
+    private static final List<String> ARCHIVE_EXTENSIONS =
+            ImmutableList.of(".zip", ".tar", ".tgz", ".tar.gz", ".tbz2", ".tar.bz2");
+
     private FileCollection archive;
     private File outputDirectory;
     private String executableName;
+    private boolean windows = OsUtils.isWindows();
 
     public ExtractExecutableTask() {
         // Memoize this because we are re-using it in the doLast action.
-        Supplier<File> tarFile = Suppliers.memoize(this::resolveTarFile);
+        Supplier<File> distributionFile = Suppliers.memoize(this::resolveDistributionFile);
 
         // Configure the spec lazily
-        from((Callable<FileTree>) () -> getProject().tarTree(tarFile.get())); // will get lazily resolved
-        eachFile(fcd -> fcd.setRelativePath(stripFirstName(fcd.getRelativePath())));
+        from((Callable<FileTree>) () -> distribution(distributionFile.get())); // will get lazily resolved
+        eachFile(fcd -> {
+            if (isNativeExecutable(distributionFile.get())) {
+                fcd.setRelativePath(RelativePath.parse(true, nativeExecutablePath()));
+                fcd.setMode(EXECUTABLE_MODE);
+                return;
+            }
+            fcd.setRelativePath(stripFirstName(fcd.getRelativePath()));
+            String[] segments = fcd.getRelativePath().getSegments();
+            if (segments.length == 2 && segments[0].equals("bin")) {
+                // Zip archives only record permissions when they were created on unix
+                fcd.setMode(fcd.getMode() | EXECUTABLE_MODE);
+            }
+        });
         into((Callable<File>) this::getOutputDirectory); // will get lazily resolved
 
         doFirst(new Action<Task>() {
             @Override
             public void execute(Task _task) {
+                if (isNativeExecutable(distributionFile.get())) {
+                    return;
+                }
                 Set<String> rootDirectories = new HashSet<>();
-                getProject().tarTree(tarFile.get()).visit(new FileVisitor() {
+                distribution(distributionFile.get()).visit(new FileVisitor() {
                     @Override
                     public void visitDir(FileVisitDetails dirDetails) {
                         // Note: If root dir contains only another dir (e.g. a/b), we won't get called with just that
@@ -76,8 +106,8 @@ public class ExtractExecutableTask extends Sync {
                 });
                 if (rootDirectories.size() != 1) {
                     throw new GradleException(String.format(
-                            "Expected exactly one root directory in tar '%s', aborting: %s",
-                            tarFile.get(), rootDirectories));
+                            "Expected exactly one root directory in archive '%s', aborting: %s",
+                            distributionFile.get(), rootDirectories));
                 }
             }
         });
@@ -86,11 +116,14 @@ public class ExtractExecutableTask extends Sync {
             @Override
             public void execute(Task _task) {
                 getLogger().info("Extracted into {}", getOutputDirectory());
+                if (isNativeExecutable(distributionFile.get()) && windows) {
+                    writeWindowsLauncher();
+                }
                 // Ensure the executable exists
                 Preconditions.checkState(
-                        Files.exists(getExecutable().toPath()),
+                        Files.exists(launcher().toPath()),
                         "Couldn't find expected file after extracting archive %s: %s",
-                        tarFile.get(),
+                        distributionFile.get(),
                         getExecutable());
             }
         });
@@ -124,8 +157,8 @@ public class ExtractExecutableTask extends Sync {
     }
 
     /**
-     * The file name of the executable. This file should exist under {@code <single root directory>/bin} inside the tar
-     * archive.
+     * The file name of the executable. This file should exist under {@code <single root directory>/bin} inside the
+     * archive, unless the distribution is the executable itself.
      */
     @Input
     public final String getExecutableName() {
@@ -136,13 +169,18 @@ public class ExtractExecutableTask extends Sync {
         this.executableName = executableName;
     }
 
+    /** Whether to extract for Windows, which defaults to whether this is Windows. */
+    final void setWindows(boolean windows) {
+        this.windows = windows;
+    }
+
     /** The full path to the executable that will be extracted by this task. */
     @OutputFile
     final File getExecutable() {
         return new File(getOutputDirectory(), String.format("bin/%s", executableName));
     }
 
-    private File resolveTarFile() {
+    private File resolveDistributionFile() {
         Set<File> resolvedFiles = archive.getFiles();
         Preconditions.checkState(
                 resolvedFiles.size() == 1,
@@ -152,6 +190,44 @@ public class ExtractExecutableTask extends Sync {
         return Iterables.getOnlyElement(resolvedFiles);
     }
 
+    /** Tar archives, zip archives, and anything else is taken to be a native executable. */
+    private FileTree distribution(File file) {
+        String name = file.getName();
+        if (name.endsWith(".zip")) {
+            return getProject().zipTree(file);
+        }
+        if (isNativeExecutable(file)) {
+            return getProject().files(file).getAsFileTree();
+        }
+        return getProject().tarTree(file);
+    }
+
+    private static boolean isNativeExecutable(File file) {
+        String name = file.getName();
+        return ARCHIVE_EXTENSIONS.stream().noneMatch(name::endsWith);
+    }
+
+    private String nativeExecutablePath() {
+        // Windows only runs executables with a known extension, so it is launched through bin/<name>.bat like others
+        return "bin/" + executableName + (windows ? ".exe" : "");
+    }
+
+    /** What runs the executable, which is a batch file on Windows. */
+    private File launcher() {
+        return windows ? new File(getExecutable().getPath() + ".bat") : getExecutable();
+    }
+
+    private void writeWindowsLauncher() {
+        File launcher = launcher();
+        try {
+            Files.write(
+                    launcher.toPath(),
+                    String.format("@\"%%~dp0%s.exe\" %%*\r\n", executableName).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + launcher, e);
+        }
+    }
+
     private static RelativePath stripFirstName(RelativePath relativePath) {
         String[] segments = relativePath.getSegments();
         return new RelativePath(relativePath.isFile(), Arrays.copyOfRange(segments, 1, segments.length));
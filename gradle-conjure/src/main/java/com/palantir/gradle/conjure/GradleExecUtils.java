@@ -17,15 +17,41 @@
 package com.palantir.gradle.conjure;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.process.ExecResult;
 
 final class GradleExecUtils {
+    private static final Logger log = Logging.getLogger(GradleExecUtils.class);
+
     private GradleExecUtils() {}
 
     static void exec(Project project, String failedTo, List<String> unloggedArgs, List<String> loggedArgs) {
+        exec(project, failedTo, project.getProjectDir(), unloggedArgs, loggedArgs);
+    }
+
+    static void exec(
+            Project project, String failedTo, File workingDir, List<String> unloggedArgs, List<String> loggedArgs) {
+        exec(project, failedTo, workingDir, Collections.emptyMap(), unloggedArgs, loggedArgs);
+    }
+
+    static void exec(
+            Project project,
+            String failedTo,
+            File workingDir,
+            Map<String, ?> environment,
+            List<String> unloggedArgs,
+            List<String> loggedArgs) {
         List<String> combinedArgs = ImmutableList.<String>builder()
                 .addAll(unloggedArgs)
                 .addAll(loggedArgs)
@@ -33,18 +59,54 @@ final class GradleExecUtils {
 
         ByteArrayOutputStream output = new ByteArrayOutputStream();
 
+        long start = System.nanoTime();
         ExecResult execResult = project.exec(execSpec -> {
             project.getLogger().info("Running with args: {}", loggedArgs);
             execSpec.commandLine(combinedArgs);
+            execSpec.workingDir(workingDir);
+            execSpec.environment(environment);
             execSpec.setIgnoreExitValue(true);
             execSpec.setStandardOutput(output);
             execSpec.setErrorOutput(output);
         });
+        ConjureBuildMetrics.recordExec(project, start);
+
+        checkExitValue(failedTo, combinedArgs, execResult.getExitValue(), output.toString());
+    }
+
+    /**
+     * Like {@link #exec(Project, String, File, List, List)}, for use in workers which have no access to the project.
+     */
+    static void execWithoutProject(
+            String failedTo, File workingDir, List<String> unloggedArgs, List<String> loggedArgs) {
+        List<String> combinedArgs = ImmutableList.<String>builder()
+                .addAll(unloggedArgs)
+                .addAll(loggedArgs)
+                .build();
+
+        log.info("Running with args: {}", loggedArgs);
+        try {
+            Process process = new ProcessBuilder(combinedArgs)
+                    .directory(workingDir)
+                    .redirectErrorStream(true)
+                    .start();
+            process.getOutputStream().close();
+            String output = new String(ByteStreams.toByteArray(process.getInputStream()), StandardCharsets.UTF_8);
+            checkExitValue(failedTo, combinedArgs, process.waitFor(), output);
+        } catch (IOException e) {
+            throw new UncheckedIOException(
+                    String.format("Failed to %s. The command '%s' could not be started", failedTo, combinedArgs), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(String.format("Interrupted while trying to %s", failedTo), e);
+        }
+    }
 
-        if (execResult.getExitValue() != 0) {
+    static void checkExitValue(String failedTo, List<String> combinedArgs, int exitValue, String output) {
+        if (exitValue != 0) {
             throw new RuntimeException(String.format(
                     "Failed to %s. The command '%s' failed with exit code %d. Output:\n%s",
-                    failedTo, combinedArgs, execResult.getExitValue(), output.toString()));
+                    failedTo, combinedArgs, exitValue, output));
         }
     }
 }
@@ -0,0 +1,139 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SourceTask;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Records which Java types several Conjure IRs generate identically, and which IR owns each of them (see
+ * {@link ConjureSharedTypes}), so that the other copies can be left out of compilation.
+ */
+@CacheableTask
+public class IndexSharedConjureTypesTask extends SourceTask {
+    /** Gradle property which compiles shared types once in {@code com.palantir.conjure-local}. */
+    static final String ENABLED_PROPERTY = "com.palantir.conjure.local.dedupeJavaTypes";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, String>> OWNERS_TYPE = new TypeReference<Map<String, String>>() {};
+
+    private File outputFile;
+
+    // Set the path sensitivity of the sources, whose names determine the directories code is generated into
+    @Override
+    @PathSensitive(PathSensitivity.NAME_ONLY)
+    public final FileTree getSource() {
+        return super.getSource();
+    }
+
+    @OutputFile
+    public final File getOutputFile() {
+        return outputFile;
+    }
+
+    public final void setOutputFile(File outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    @TaskAction
+    public final void index() throws IOException {
+        Map<String, JsonNode> irsByDirectory = new TreeMap<>();
+        for (File irFile : getSource().getFiles()) {
+            irsByDirectory.put(generatedDirectoryName(irFile), OBJECT_MAPPER.readTree(irFile));
+        }
+
+        SortedMap<String, SortedMap<String, String>> hashesByType = ConjureSharedTypes.hashesByType(irsByDirectory);
+        hashesByType.forEach((name, hashesByDirectory) -> {
+            if (hashesByDirectory.values().stream().distinct().count() > 1) {
+                getLogger().warn(
+                        "Conjure definitions {} define {} differently, so it can't be shared",
+                        hashesByDirectory.keySet(),
+                        name);
+            }
+        });
+        SortedMap<String, String> owners = ConjureSharedTypes.owners(hashesByType);
+        getLogger().info("Compiling {} types shared by several conjure definitions once", owners.size());
+        OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(outputFile, owners);
+    }
+
+    /** Leaves the copies of shared types which another definition owns out of the given compile task. */
+    static void excludeDuplicates(SourceTask compileTask, IndexSharedConjureTypesTask indexTask, File generatedDir) {
+        compileTask.dependsOn(indexTask);
+        compileTask.exclude(new ExcludeDuplicates(indexTask.getOutputFile(), generatedDir.toPath()));
+    }
+
+    /** Matches {@link ConjureLocalGenerateTask#outputDirectoryFor}, which strips the version and extension. */
+    private static String generatedDirectoryName(File irFile) {
+        return irFile.getName().substring(0, irFile.getName().lastIndexOf("-"));
+    }
+
+    private static final class ExcludeDuplicates implements Spec<FileTreeElement> {
+        private final File indexFile;
+        private final Path generatedDir;
+        private Map<String, String> ownersBySourcePath = Collections.emptyMap();
+        private long indexLastModified = -1;
+
+        ExcludeDuplicates(File indexFile, Path generatedDir) {
+            this.indexFile = indexFile;
+            this.generatedDir = generatedDir;
+        }
+
+        @Override
+        public boolean isSatisfiedBy(FileTreeElement element) {
+            Path path = element.getFile().toPath();
+            return !element.isDirectory()
+                    && path.startsWith(generatedDir)
+                    && ConjureSharedTypes.isDuplicate(
+                            ownersBySourcePath(), generatedDir.relativize(path).toString().replace('\\', '/'));
+        }
+
+        /** Reads the index whenever it changes, as the spec may be evaluated before it is written. */
+        private synchronized Map<String, String> ownersBySourcePath() {
+            long lastModified = indexFile.lastModified();
+            if (lastModified != indexLastModified) {
+                try {
+                    ownersBySourcePath = lastModified == 0
+                            ? ImmutableMap.of()
+                            : ConjureSharedTypes.ownersBySourcePath(OBJECT_MAPPER.readValue(indexFile, OWNERS_TYPE));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to read shared conjure types " + indexFile, e);
+                }
+                indexLastModified = lastModified;
+            }
+            return ownersBySourcePath;
+        }
+    }
+}
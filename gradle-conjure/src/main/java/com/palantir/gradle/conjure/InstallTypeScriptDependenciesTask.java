@@ -0,0 +1,77 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Installs the dependencies of a generated TypeScript package, reusing a previous installation of the same dependencies
+ * from the {@link NodeModulesCache} instead of running {@code npm install} whenever possible.
+ */
+public class InstallTypeScriptDependenciesTask extends DefaultTask {
+    private Supplier<File> srcDirectory;
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final File getPackageJson() {
+        return new File(srcDirectory.get(), "package.json");
+    }
+
+    @OutputDirectory
+    public final File getNodeModules() {
+        return new File(srcDirectory.get(), "node_modules");
+    }
+
+    final void setSrcDirectory(Supplier<File> srcDirectory) {
+        this.srcDirectory = srcDirectory;
+    }
+
+    @TaskAction
+    public final void install() throws IOException {
+        String cacheKey = NodeModulesCache.cacheKey(getPackageJson());
+        File keyFile = new File(getNodeModules(), NodeModulesCache.KEY_FILE);
+        if (keyFile.isFile()
+                && new String(Files.readAllBytes(keyFile.toPath()), StandardCharsets.UTF_8).equals(cacheKey)) {
+            getLogger().info("Dependencies in {} are already installed", getNodeModules());
+            return;
+        }
+
+        File cacheEntry = new File(NodeModulesCache.cacheDirectory(getProject()), cacheKey);
+        if (cacheEntry.isDirectory()) {
+            getLogger().info("Restoring {} from {}", getNodeModules(), cacheEntry);
+            NodeModulesCache.restore(cacheEntry, getNodeModules());
+            return;
+        }
+
+        getProject().exec(execSpec -> {
+            execSpec.commandLine(OsUtils.NPM_COMMAND_NAME, "install", "--no-package-lock", "--no-production");
+            execSpec.workingDir(srcDirectory.get());
+        });
+        Files.write(keyFile.toPath(), cacheKey.getBytes(StandardCharsets.UTF_8));
+        NodeModulesCache.store(getNodeModules(), cacheEntry);
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.ImmutableList;
+import java.util.List;
+import java.util.Map;
+import org.immutables.value.Value;
+
+/**
+ * Describes the compiled Java bindings published alongside a conjure IR, so that consumers can tell whether they would
+ * generate identical code.
+ */
+@Value.Immutable
+@JsonDeserialize(as = ImmutableJavaBindingsManifest.class)
+@JsonSerialize(as = ImmutableJavaBindingsManifest.class)
+interface JavaBindingsManifest {
+    String PUBLISH_PROPERTY = "com.palantir.conjure.publishJavaBindings";
+    String CLASSIFIER = "java-bindings";
+    /** The published kinds of bindings, each of which is both a conjure-java flag and the classifier of its jar. */
+    List<String> FLAVORS = ImmutableList.of("objects", "jersey", "dialogue");
+
+    String conjureJavaVersion();
+
+    /** The rendered conjure-java arguments each flavor was generated with, keyed by flavor. */
+    Map<String, List<String>> generatorArgs();
+}
@@ -0,0 +1,280 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.gradle.BuildAdapter;
+import org.gradle.BuildResult;
+import org.gradle.api.Project;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+
+/**
+ * Keeps Node based generators such as conjure-typescript running between invocations, so that only the first
+ * invocation of each generator in a build pays for starting Node and loading the generator. Each server runs
+ * {@code conjure-generator-server.js}, which accepts one generate request per line on stdin. Generators which the
+ * server can't run, or a Node which can't be started, fall back to forking the generator as usual.
+ */
+final class NodeGeneratorPool extends BuildAdapter {
+    /** Gradle property which runs conjure-typescript in a pool of warm Node processes. */
+    static final String ENABLED_PROPERTY = "com.palantir.conjure.typescript.generatorServer";
+    /** Gradle property with the number of seconds a server may take to answer, before its request is forked. */
+    static final String TIMEOUT_PROPERTY = "com.palantir.conjure.typescript.generatorServerTimeoutSeconds";
+    static final String PROTOCOL = "conjure-generator-server 1";
+
+    private static final Logger log = Logging.getLogger(NodeGeneratorPool.class);
+    private static final String EXTRA_PROPERTY = "conjureNodeGeneratorPool";
+    private static final String SERVER_SCRIPT = "conjure-generator-server.js";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofMinutes(5);
+
+    private final File serverScript;
+    private final Duration timeout;
+    private final Map<File, Deque<Server>> idleServers = new ConcurrentHashMap<>();
+    private final Set<File> unsupportedExecutables = ConcurrentHashMap.newKeySet();
+    private final Set<Server> servers = ConcurrentHashMap.newKeySet();
+    private boolean serverScriptWritten;
+
+    private NodeGeneratorPool(File serverScript, Duration timeout) {
+        this.serverScript = serverScript;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Creates the pool of the current build if {@value #ENABLED_PROPERTY} is set, and returns whether it is. The pool
+     * is shut down when the build finishes.
+     */
+    static boolean registerIfEnabled(Project project) {
+        if (!ConjurePlugin.isPropertyEnabled(project, ENABLED_PROPERTY)) {
+            return false;
+        }
+        register(project);
+        return true;
+    }
+
+    private static void register(Project project) {
+        ExtraPropertiesExtension extra = project.getRootProject().getExtensions().getExtraProperties();
+        if (extra.has(EXTRA_PROPERTY)) {
+            return;
+        }
+        File serverScript = new File(project.getRootProject().getBuildDir(), "tmp/conjure/" + SERVER_SCRIPT);
+        Duration timeout = Optional.ofNullable(project.findProperty(TIMEOUT_PROPERTY))
+                .map(seconds -> Duration.ofSeconds(Long.parseLong(String.valueOf(seconds))))
+                .orElse(DEFAULT_TIMEOUT);
+        NodeGeneratorPool pool = new NodeGeneratorPool(serverScript, timeout);
+        extra.set(EXTRA_PROPERTY, pool);
+        project.getGradle().addBuildListener(pool);
+    }
+
+    /**
+     * Runs the generator {@code command} with the given arguments in a warm server if the pool is enabled and the
+     * generator supports it, and otherwise forks it.
+     */
+    static void exec(Project project, String failedTo, List<String> command, List<String> loggedArgs) {
+        long start = System.nanoTime();
+        if (find(project).map(pool -> pool.tryExec(failedTo, command, loggedArgs)).orElse(false)) {
+            ConjureBuildMetrics.recordExec(project, start);
+            return;
+        }
+        GradleExecUtils.exec(project, failedTo, command, loggedArgs);
+    }
+
+    /** The pool of the current build, or empty if it isn't enabled. */
+    static Optional<NodeGeneratorPool> find(Project project) {
+        ExtraPropertiesExtension extra = project.getRootProject().getExtensions().getExtraProperties();
+        Object pool = extra.has(EXTRA_PROPERTY) ? extra.get(EXTRA_PROPERTY) : null;
+        // Plugins loaded by another classloader have their own pool, or none at all
+        return pool instanceof NodeGeneratorPool ? Optional.of((NodeGeneratorPool) pool) : Optional.empty();
+    }
+
+    /** Like {@link #exec(Project, String, List, List)}, for use on threads which have no access to the project. */
+    void execWithoutProject(String failedTo, File workingDir, List<String> command, List<String> loggedArgs) {
+        if (!tryExec(failedTo, command, loggedArgs)) {
+            GradleExecUtils.execWithoutProject(failedTo, workingDir, command, loggedArgs);
+        }
+    }
+
+    /** Returns false if the generator could not be run in a server, in which case it should be forked instead. */
+    private boolean tryExec(String failedTo, List<String> command, List<String> loggedArgs) {
+        File executable = new File(command.get(0));
+        if (unsupportedExecutables.contains(executable)) {
+            return false;
+        }
+        Deque<Server> idle = idleServers.computeIfAbsent(executable, _executable -> new ConcurrentLinkedDeque<>());
+        Optional<Server> server = Optional.ofNullable(idle.poll());
+        if (!server.isPresent()) {
+            server = startServer(executable);
+        }
+        if (!server.isPresent()) {
+            unsupportedExecutables.add(executable);
+            return false;
+        }
+
+        List<String> args = ImmutableList.<String>builder()
+                .addAll(command.subList(1, command.size()))
+                .addAll(loggedArgs)
+                .build();
+        log.info("Running with args: {}", loggedArgs);
+        Optional<JsonNode> response = server.get().run(args, timeout);
+        if (!response.isPresent()) {
+            // The server died or hung, so this invocation is forked and the next one starts a new server
+            server.get().close();
+            servers.remove(server.get());
+            return false;
+        }
+        log.info("Ran {} in a warm generator server", executable.getName());
+        idle.push(server.get());
+        GradleExecUtils.checkExitValue(
+                failedTo,
+                command,
+                response.get().path("exitCode").asInt(1),
+                response.get().path("output").asText());
+        return true;
+    }
+
+    private Optional<Server> startServer(File executable) {
+        try {
+            writeServerScript();
+            Process process = new ProcessBuilder("node", serverScript.getAbsolutePath(), executable.getAbsolutePath())
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            Server server = new Server(process);
+            servers.add(server);
+            Optional<String> handshake = server.readLine(timeout);
+            if (!handshake.equals(Optional.of(PROTOCOL))) {
+                log.info("Running {} directly, as it does not support {}", executable, PROTOCOL);
+                server.close();
+                return Optional.empty();
+            }
+            return Optional.of(server);
+        } catch (IOException e) {
+            log.info("Running {} directly, as a generator server could not be started", executable, e);
+            return Optional.empty();
+        }
+    }
+
+    private synchronized void writeServerScript() throws IOException {
+        if (serverScriptWritten) {
+            return;
+        }
+        Files.createDirectories(serverScript.getParentFile().toPath());
+        try (InputStream script = NodeGeneratorPool.class.getResourceAsStream(SERVER_SCRIPT)) {
+            Files.copy(script, serverScript.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        serverScriptWritten = true;
+    }
+
+    @Override
+    public void buildFinished(BuildResult _result) {
+        servers.forEach(Server::close);
+        servers.clear();
+        idleServers.clear();
+    }
+
+    private static final class Server {
+        private final Process process;
+        private final BufferedWriter input;
+        private final BufferedReader output;
+        // Reads the server's responses, so that waiting for one can time out
+        private final ExecutorService reader = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("conjure-generator-server-%d")
+                .setDaemon(true)
+                .build());
+
+        Server(Process process) {
+            this.process = process;
+            this.input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Runs the generator once, returning its exit code and output, or empty if the server died or did not answer
+         * within the timeout.
+         */
+        Optional<JsonNode> run(List<String> args, Duration timeout) {
+            try {
+                input.write(OBJECT_MAPPER.writeValueAsString(args));
+                input.newLine();
+                input.flush();
+                Optional<String> response = readLine(timeout);
+                return response.isPresent() ? Optional.of(OBJECT_MAPPER.readTree(response.get())) : Optional.empty();
+            } catch (IOException e) {
+                log.info("Conjure generator server failed", e);
+                return Optional.empty();
+            }
+        }
+
+        /** The next line the server writes, or empty if it exited or did not write one within the timeout. */
+        Optional<String> readLine(Duration timeout) {
+            Future<String> line = reader.submit(output::readLine);
+            try {
+                return Optional.ofNullable(line.get(timeout.toMillis(), TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                log.warn("Conjure generator server did not answer within {}, so it was stopped", timeout);
+                // Unblocks the reader, which then sees the end of the output
+                process.destroyForcibly();
+                return Optional.empty();
+            } catch (ExecutionException e) {
+                log.info("Conjure generator server failed", e.getCause());
+                return Optional.empty();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                process.destroyForcibly();
+                return Optional.empty();
+            }
+        }
+
+        void close() {
+            try {
+                input.close();
+            } catch (IOException e) {
+                // The server already exited
+            } finally {
+                process.destroy();
+                reader.shutdownNow();
+            }
+        }
+    }
+}
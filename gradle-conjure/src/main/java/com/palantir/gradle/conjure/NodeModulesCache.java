@@ -0,0 +1,130 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.gradle.api.Project;
+import org.gradle.util.GFileUtils;
+
+/**
+ * A cache of installed {@code node_modules} directories, shared by every build which uses the same Gradle user home.
+ * Entries are keyed by the dependencies declared in a generated {@code package.json}, which rarely change even though
+ * its version does. Entries are copied in both directions, as packages and install scripts may write to their own
+ * files, which must not change the entry other builds restore.
+ */
+final class NodeModulesCache {
+    /** Gradle property which enables the cache for {@code installTypeScriptDependencies}. */
+    static final String ENABLED_PROPERTY = "com.palantir.conjure.typescript.nodeModulesCache";
+    /** Records which dependencies an installed {@code node_modules} directory holds. */
+    static final String KEY_FILE = ".conjure-dependencies-hash";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final List<String> DEPENDENCY_SECTIONS =
+            ImmutableList.of("dependencies", "devDependencies", "peerDependencies", "optionalDependencies");
+
+    private NodeModulesCache() {}
+
+    static File cacheDirectory(Project project) {
+        return new File(project.getGradle().getGradleUserHomeDir(), "caches/conjure-typescript/node_modules");
+    }
+
+    /** Hashes the dependency sections of the given {@code package.json}, along with the platform of native modules. */
+    static String cacheKey(File packageJson) {
+        try {
+            JsonNode manifest = OBJECT_MAPPER.readTree(packageJson);
+            Hasher hasher = Hashing.sha256().newHasher();
+            hasher.putString(System.getProperty("os.name"), StandardCharsets.UTF_8);
+            hasher.putString(System.getProperty("os.arch"), StandardCharsets.UTF_8);
+            for (String section : DEPENDENCY_SECTIONS) {
+                hasher.putString(section, StandardCharsets.UTF_8);
+                List<String> dependencies = ImmutableList.copyOf(manifest.path(section).fieldNames());
+                for (String dependency : dependencies.stream().sorted().collect(Collectors.toList())) {
+                    hasher.putString(dependency, StandardCharsets.UTF_8);
+                    hasher.putString(manifest.path(section).path(dependency).asText(), StandardCharsets.UTF_8);
+                }
+            }
+            return hasher.hash().toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + packageJson, e);
+        }
+    }
+
+    /** Replaces the given {@code node_modules} directory with a copy of the cache entry. */
+    static void restore(File cacheEntry, File nodeModules) {
+        GFileUtils.deleteDirectory(nodeModules);
+        try {
+            copyDirectory(cacheEntry.toPath(), nodeModules.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to restore " + nodeModules + " from " + cacheEntry, e);
+        }
+    }
+
+    /** Copies the given {@code node_modules} directory into the cache, unless another build already stored it. */
+    static void store(File nodeModules, File cacheEntry) {
+        Path target = cacheEntry.toPath();
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(target.getParent());
+            copyDirectory(nodeModules.toPath(), temp);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target);
+            }
+        } catch (IOException e) {
+            if (Files.isDirectory(target)) {
+                // Another build stored the same dependencies first
+                return;
+            }
+            throw new UncheckedIOException("Failed to store " + nodeModules + " in " + cacheEntry, e);
+        } finally {
+            GFileUtils.deleteQuietly(temp.toFile());
+        }
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                Path destination = target.resolve(source.relativize(path).toString());
+                if (Files.isSymbolicLink(path)) {
+                    // Such as the commands in node_modules/.bin, which point at files relative to themselves
+                    Files.createSymbolicLink(destination, Files.readSymbolicLink(path));
+                } else if (Files.isDirectory(path)) {
+                    Files.createDirectories(destination);
+                } else {
+                    Files.copy(path, destination, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+}
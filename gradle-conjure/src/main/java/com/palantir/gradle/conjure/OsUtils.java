@@ -16,14 +16,105 @@
 
 package com.palantir.gradle.conjure;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.io.File;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
 import org.apache.tools.ant.taskdefs.condition.Os;
+import org.gradle.api.Project;
 
 final class OsUtils {
     public static final String NPM_COMMAND_NAME = appendIfWindows(".cmd", "npm");
 
+    /**
+     * Prefix of the Gradle properties which, when set to an extension such as {@code zip} or {@code exe}, resolve a
+     * generator as the natively compiled build for the current OS and architecture, such as
+     * {@code conjure-java-1.0.0-linux-x86_64.zip}. They are named after the generator, optionally followed by the OS,
+     * such as {@code com.palantir.conjure.nativeGenerators.conjure-java.windows}, which takes precedence.
+     */
+    static final String NATIVE_GENERATORS_PROPERTY = "com.palantir.conjure.nativeGenerators";
+
+    private static final Set<String> X86_64 = ImmutableSet.of("x86_64", "amd64", "x64", "x86-64");
+    private static final Set<String> AARCH_64 = ImmutableSet.of("aarch64", "arm64");
+
     private OsUtils() {}
 
+    static boolean isWindows() {
+        return Os.isFamily(Os.FAMILY_WINDOWS);
+    }
+
+    /**
+     * The classifier of native builds for the current OS and architecture, following the names of the
+     * os-maven-plugin, such as {@code linux-x86_64}, {@code osx-aarch_64} or {@code windows-x86_64}.
+     */
+    static String nativeClassifier() {
+        return nativeClassifier(System.getProperty("os.name"), System.getProperty("os.arch"));
+    }
+
+    static String nativeClassifier(String osName, String osArch) {
+        return nativeOs(osName) + "-" + normalizeArch(osArch.toLowerCase(Locale.ROOT));
+    }
+
+    private static String nativeOs(String osName) {
+        return normalizeOs(osName.toLowerCase(Locale.ROOT));
+    }
+
+    private static String normalizeOs(String os) {
+        if (os.startsWith("mac") || os.startsWith("osx")) {
+            return "osx";
+        }
+        if (os.startsWith("windows")) {
+            return "windows";
+        }
+        return os.replaceAll("[^a-z0-9]+", "");
+    }
+
+    private static String normalizeArch(String arch) {
+        if (X86_64.contains(arch)) {
+            return "x86_64";
+        }
+        if (AARCH_64.contains(arch)) {
+            return "aarch_64";
+        }
+        return arch.replaceAll("[^a-z0-9_]+", "");
+    }
+
+    /**
+     * The dependency notation of the given generator, which is the native build for this machine if a {@value
+     * #NATIVE_GENERATORS_PROPERTY} property is set for it.
+     */
+    static Object generatorDependency(Project project, String binary) {
+        List<String> coordinates = Splitter.on(':').splitToList(binary.replaceFirst("@.*$", ""));
+        Optional<String> extension =
+                nativeExtension(project::findProperty, coordinates.get(1), nativeOs(System.getProperty("os.name")));
+        if (!extension.isPresent()) {
+            return binary;
+        }
+
+        return ImmutableMap.of(
+                "group", coordinates.get(0),
+                "name", coordinates.get(1),
+                "classifier", nativeClassifier(),
+                "ext", extension.get());
+    }
+
+    /** The extension of the native build of the given generator on the given OS, if one should be used. */
+    static Optional<String> nativeExtension(Function<String, Object> properties, String generator, String os) {
+        String property = NATIVE_GENERATORS_PROPERTY + "." + generator;
+        return Stream.of(property + "." + os, property)
+                .map(properties)
+                .filter(Objects::nonNull)
+                .map(String::valueOf)
+                .findFirst();
+    }
+
     static String appendDotBatIfWindows(String executable) {
         return appendIfWindows(".bat", executable);
     }
@@ -33,6 +124,6 @@ final class OsUtils {
     }
 
     private static String appendIfWindows(String toAppend, String value) {
-        return value + (Os.isFamily(Os.FAMILY_WINDOWS) ? toAppend : "");
+        return value + (isWindows() ? toAppend : "");
     }
 }
@@ -0,0 +1,127 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.specs.Spec;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Assigns the generated source file of each type in the IR to one of a number of shards using the
+ * {@link ConjureShardPlanner}. Files which are not part of any shard, such as generated errors, are compiled as usual.
+ */
+public class PlanConjureShardsTask extends DefaultTask {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Integer>> PLAN_TYPE = new TypeReference<Map<String, Integer>>() {};
+
+    private final RegularFileProperty irFile = getProject().getObjects().fileProperty();
+    private final Property<Integer> shardCount = getProject().getObjects().property(Integer.class);
+    private final Property<String> packagePrefix = getProject().getObjects().property(String.class);
+    private final RegularFileProperty planFile = getProject().getObjects().fileProperty();
+
+    private long loadedPlanModified = -1;
+    private Map<String, Integer> loadedPlan = Collections.emptyMap();
+
+    public PlanConjureShardsTask() {
+        planFile.set(getProject().getLayout().getBuildDirectory().file("conjure-shards/" + getName() + ".json"));
+        packagePrefix.set("");
+    }
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final RegularFileProperty getIrFile() {
+        return irFile;
+    }
+
+    @Input
+    public final Property<Integer> getShardCount() {
+        return shardCount;
+    }
+
+    /** The {@code packagePrefix} the sources are generated with, or empty if there is none. */
+    @Input
+    public final Property<String> getPackagePrefix() {
+        return packagePrefix;
+    }
+
+    /** Maps the path of each sharded source file, relative to the generated source root, to its shard. */
+    @OutputFile
+    public final RegularFileProperty getPlanFile() {
+        return planFile;
+    }
+
+    @TaskAction
+    public final void plan() throws IOException {
+        List<Set<String>> shards =
+                ConjureShardPlanner.plan(OBJECT_MAPPER.readTree(irFile.getAsFile().get()), shardCount.get());
+        String prefix = packagePrefix.get().isEmpty() ? "" : packagePrefix.get() + ".";
+        Map<String, Integer> plan = new TreeMap<>();
+        for (int shard = 0; shard < shards.size(); shard++) {
+            for (String typeName : shards.get(shard)) {
+                plan.put((prefix + typeName).replace('.', '/') + ".java", shard);
+            }
+            getLogger().info("Conjure shard {} contains {} types", shard, shards.get(shard).size());
+        }
+        File file = planFile.getAsFile().get();
+        OBJECT_MAPPER.writeValue(file, plan);
+        synchronized (this) {
+            loadedPlan = plan;
+            loadedPlanModified = file.lastModified();
+        }
+    }
+
+    /**
+     * Matches the source files of the given shard, or those which are not part of any shard for a negative shard. Files
+     * are matched by their path relative to the generated source root.
+     */
+    final Spec<FileTreeElement> inShard(int shard) {
+        return element -> loadPlan().getOrDefault(element.getRelativePath().getPathString(), -1) == shard;
+    }
+
+    /** The plan is written during the build, so it is reloaded whenever it changed since it was last read. */
+    private synchronized Map<String, Integer> loadPlan() {
+        File file = planFile.getAsFile().get();
+        long modified = file.isFile() ? file.lastModified() : -1;
+        if (modified != loadedPlanModified) {
+            try {
+                loadedPlan = modified < 0 ? Collections.emptyMap() : OBJECT_MAPPER.readValue(file, PLAN_TYPE);
+                loadedPlanModified = modified;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read conjure shard plan " + file, e);
+            }
+        }
+        return loadedPlan;
+    }
+}
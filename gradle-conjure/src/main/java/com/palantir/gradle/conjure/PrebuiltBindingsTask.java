@@ -0,0 +1,72 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.tasks.Internal;
+import org.gradle.util.GFileUtils;
+
+/**
+ * A task which may find already compiled bindings for a conjure definition, in which case they are written to
+ * {@link #getPrebuiltJar()} and generating and compiling the bindings can be skipped.
+ */
+public abstract class PrebuiltBindingsTask extends DefaultTask {
+    private final RegularFileProperty prebuiltJar = getProject().getObjects().fileProperty();
+    private Supplier<File> classesDirectory;
+    private boolean prebuilt;
+
+    public PrebuiltBindingsTask() {
+        // Whether prebuilt bindings exist can change without any of our inputs changing
+        getOutputs().upToDateWhen(_task -> false);
+    }
+
+    /** Where prebuilt bindings are written to when found. Deleted otherwise. */
+    @Internal
+    public final RegularFileProperty getPrebuiltJar() {
+        return prebuiltJar;
+    }
+
+    /** The output of compiling the generated sources, which is cleared when using prebuilt bindings. */
+    @Internal
+    public final File getClassesDirectory() {
+        return classesDirectory.get();
+    }
+
+    final void setClassesDirectory(Supplier<File> classesDirectory) {
+        this.classesDirectory = classesDirectory;
+    }
+
+    @Internal
+    final boolean isPrebuilt() {
+        return prebuilt;
+    }
+
+    /** Records that {@link #getPrebuiltJar()} has been written, so the compiled classes can't shadow it. */
+    final void usePrebuiltJar() {
+        prebuilt = true;
+        GFileUtils.deleteDirectory(getClassesDirectory());
+    }
+
+    final void useGeneratedSources() throws IOException {
+        prebuilt = false;
+        Files.deleteIfExists(prebuiltJar.getAsFile().get().toPath());
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.palantir.gradle.conjure.api.GeneratorFilter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+import org.gradle.api.Project;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.file.FileTree;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.SourceTask;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.util.GFileUtils;
+
+/** Writes copies of Conjure IR files which only contain what a {@link GeneratorFilter} selects. */
+@CacheableTask
+public class PruneConjureIrTask extends SourceTask {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private Supplier<GeneratorFilter> filter;
+    private File outputDirectory;
+
+    /**
+     * The IR files a generator should consume: the pruned copies when the given filter is set, and otherwise the
+     * original files.
+     */
+    static FileCollection prunedDefinitions(
+            Project project, String taskName, Object irFiles, Supplier<GeneratorFilter> filter, File outputDirectory) {
+        PruneConjureIrTask pruneTask = project.getTasks().create(taskName, PruneConjureIrTask.class, task -> {
+            task.setDescription("Prunes Conjure definitions to the configured filter.");
+            task.setSource(irFiles);
+            task.setFilter(filter);
+            task.setOutputDirectory(outputDirectory);
+            task.onlyIf(_task -> !filter.get().isEmpty());
+        });
+        return project.files((Callable<Object>) () -> filter.get().isEmpty()
+                        ? irFiles
+                        : project.fileTree(pruneTask.getOutputDirectory()))
+                .builtBy(pruneTask);
+    }
+
+    // Set the path sensitivity of the sources, which would otherwise default to ABSOLUTE
+    @Override
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public final FileTree getSource() {
+        return super.getSource();
+    }
+
+    @Input
+    public final GeneratorFilter getFilter() {
+        return filter.get();
+    }
+
+    final void setFilter(Supplier<GeneratorFilter> filter) {
+        this.filter = filter;
+    }
+
+    @OutputDirectory
+    public final File getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    public final void setOutputDirectory(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    @TaskAction
+    public final void prune() {
+        GFileUtils.cleanDirectory(outputDirectory);
+        GeneratorFilter generatorFilter = getFilter();
+        getSource().getFiles().forEach(irFile -> {
+            try {
+                OBJECT_MAPPER.writeValue(
+                        new File(outputDirectory, irFile.getName()),
+                        ConjureIrPruner.prune(OBJECT_MAPPER.readTree(irFile), generatorFilter));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to prune conjure definition " + irFile, e);
+            }
+        });
+    }
+}
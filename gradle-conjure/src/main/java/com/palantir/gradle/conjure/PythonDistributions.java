@@ -0,0 +1,260 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.immutables.value.Value;
+
+/**
+ * Packages generated Python bindings into a universal wheel (PEP 427) and a source distribution without running
+ * setuptools. This relies on the generated package being pure Python with static metadata in its {@code setup.py}.
+ */
+final class PythonDistributions {
+    private static final Pattern NAME = Pattern.compile("\\bname\\s*=\\s*(['\"])(.*?)\\1");
+    private static final Pattern VERSION = Pattern.compile("\\bversion\\s*=\\s*(['\"])(.*?)\\1");
+    private static final Pattern INSTALL_REQUIRES = Pattern.compile("install_requires\\s*=\\s*\\[([^]]*)]");
+    private static final Pattern PYTHON_REQUIRES = Pattern.compile("python_requires\\s*=\\s*(['\"])(.*?)\\1");
+    private static final Pattern DESCRIPTION = Pattern.compile("description\\s*=\\s*(['\"])(.*?)\\1");
+    private static final Pattern STRING_LITERAL = Pattern.compile("(['\"])(.*?)\\1");
+    private static final List<String> WHEEL_TAGS = ImmutableList.of("py2-none-any", "py3-none-any");
+
+    private PythonDistributions() {}
+
+    /**
+     * Reads the name, version and requirements of the package from its generated {@code setup.py}, which reflects any
+     * {@code packageName} or {@code packageVersion} options conjure-python was given.
+     */
+    static Metadata readMetadata(File setupPy) {
+        String setup;
+        try {
+            setup = new String(Files.readAllBytes(setupPy.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + setupPy, e);
+        }
+        ImmutableMetadata.Builder metadata = ImmutableMetadata.builder()
+                .name(requiredString(NAME, "name", setup, setupPy))
+                .version(requiredString(VERSION, "version", setup, setupPy));
+        Matcher installRequires = INSTALL_REQUIRES.matcher(setup);
+        if (installRequires.find()) {
+            Matcher requirement = STRING_LITERAL.matcher(installRequires.group(1));
+            while (requirement.find()) {
+                metadata.addRequirements(requirement.group(2));
+            }
+        }
+        Matcher pythonRequires = PYTHON_REQUIRES.matcher(setup);
+        if (pythonRequires.find()) {
+            metadata.requiresPython(pythonRequires.group(2));
+        }
+        Matcher description = DESCRIPTION.matcher(setup);
+        if (description.find()) {
+            metadata.summary(description.group(2));
+        }
+        return metadata.build();
+    }
+
+    private static String requiredString(Pattern pattern, String field, String setup, File setupPy) {
+        Matcher matcher = pattern.matcher(setup);
+        if (!matcher.find()) {
+            throw new IllegalStateException("Failed to find the package " + field + " in " + setupPy);
+        }
+        return matcher.group(2);
+    }
+
+    /**
+     * The files which setuptools' {@code find_packages()} would package: every file in a directory which, like all
+     * its parents, contains an {@code __init__.py}, keyed by its path relative to the given directory.
+     */
+    static SortedMap<String, File> packageFiles(File pythonDirectory) {
+        Path root = pythonDirectory.toPath();
+        SortedMap<String, File> files = new TreeMap<>();
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                String fileName = path.getFileName().toString();
+                if ((fileName.endsWith(".py") || fileName.equals("py.typed")) && isInPackage(root, path.getParent())) {
+                    files.put(root.relativize(path).toString().replace(File.separatorChar, '/'), path.toFile());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list " + pythonDirectory, e);
+        }
+        return files;
+    }
+
+    /** Writes {@code <name>-<version>-py2.py3-none-any.whl}, whose {@code RECORD} is computed as it is written. */
+    static File writeWheel(File pythonDirectory, Metadata metadata, File distDirectory) {
+        String distribution = escape(metadata.name()) + "-" + escape(metadata.version());
+        String distInfo = distribution + ".dist-info/";
+        File wheel = new File(distDirectory, distribution + "-py2.py3-none-any.whl");
+        StringBuilder record = new StringBuilder();
+        try (ZipOutputStream output =
+                new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(wheel.toPath())))) {
+            for (Map.Entry<String, File> file : packageFiles(pythonDirectory).entrySet()) {
+                writeWheelEntry(output, record, file.getKey(), Files.readAllBytes(file.getValue().toPath()));
+            }
+            writeWheelEntry(output, record, distInfo + "METADATA", utf8(metadata(metadata, "2.1")));
+            writeWheelEntry(output, record, distInfo + "WHEEL", utf8(wheelFile()));
+            writeWheelEntry(output, record, distInfo + "top_level.txt", utf8(topLevel(pythonDirectory)));
+            record.append(distInfo).append("RECORD,,\n");
+            writeEntry(output, distInfo + "RECORD", utf8(record.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + wheel, e);
+        }
+        return wheel;
+    }
+
+    /** Writes {@code <name>-<version>.tar.gz}, containing {@code setup.py}, {@code PKG-INFO} and the packages. */
+    static File writeSdist(File pythonDirectory, Metadata metadata, File distDirectory) {
+        String root = metadata.name() + "-" + metadata.version();
+        File sdist = new File(distDirectory, root + ".tar.gz");
+        SortedMap<String, byte[]> files = new TreeMap<>();
+        try {
+            for (String topLevelFile : ImmutableList.of("setup.py", "setup.cfg")) {
+                File file = new File(pythonDirectory, topLevelFile);
+                if (file.isFile()) {
+                    files.put(topLevelFile, Files.readAllBytes(file.toPath()));
+                }
+            }
+            for (Map.Entry<String, File> file : packageFiles(pythonDirectory).entrySet()) {
+                files.put(file.getKey(), Files.readAllBytes(file.getValue().toPath()));
+            }
+            files.put("PKG-INFO", utf8(metadata(metadata, "2.1")));
+
+            for (String path : ImmutableList.copyOf(files.keySet())) {
+                for (int slash = path.indexOf('/'); slash >= 0; slash = path.indexOf('/', slash + 1)) {
+                    files.put(path.substring(0, slash + 1), null);
+                }
+            }
+
+            try (ReproducibleArchives.TarGzWriter writer = new ReproducibleArchives.TarGzWriter(sdist)) {
+                writer.directory(root);
+                for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                    if (file.getValue() == null) {
+                        writer.directory(root + "/" + file.getKey());
+                    } else {
+                        writer.file(root + "/" + file.getKey(), false, file.getValue());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write " + sdist, e);
+        }
+        return sdist;
+    }
+
+    private static boolean isInPackage(Path root, Path directory) {
+        for (Path current = directory; !current.equals(root); current = current.getParent()) {
+            if (!Files.isRegularFile(current.resolve("__init__.py"))) {
+                return false;
+            }
+        }
+        return !directory.equals(root);
+    }
+
+    private static void writeWheelEntry(ZipOutputStream output, StringBuilder record, String path, byte[] contents)
+            throws IOException {
+        writeEntry(output, path, contents);
+        HashCode hash = Hashing.sha256().hashBytes(contents);
+        record.append(path)
+                .append(",sha256=")
+                .append(Base64.getUrlEncoder().withoutPadding().encodeToString(hash.asBytes()))
+                .append(',')
+                .append(contents.length)
+                .append('\n');
+    }
+
+    private static void writeEntry(ZipOutputStream output, String path, byte[] contents) throws IOException {
+        ZipEntry entry = new ZipEntry(path);
+        entry.setTime(ReproducibleArchives.ZIP_ENTRY_TIME);
+        output.putNextEntry(entry);
+        output.write(contents);
+        output.closeEntry();
+    }
+
+    private static String metadata(Metadata metadata, String metadataVersion) {
+        StringBuilder builder = new StringBuilder()
+                .append("Metadata-Version: ").append(metadataVersion).append('\n')
+                .append("Name: ").append(metadata.name()).append('\n')
+                .append("Version: ").append(metadata.version()).append('\n');
+        metadata.summary().ifPresent(summary -> builder.append("Summary: ").append(summary).append('\n'));
+        metadata.requiresPython().ifPresent(
+                requiresPython -> builder.append("Requires-Python: ").append(requiresPython).append('\n'));
+        metadata.requirements().forEach(
+                requirement -> builder.append("Requires-Dist: ").append(requirement).append('\n'));
+        return builder.toString();
+    }
+
+    private static String wheelFile() {
+        StringBuilder builder = new StringBuilder()
+                .append("Wheel-Version: 1.0\n")
+                .append("Generator: gradle-conjure\n")
+                .append("Root-Is-Purelib: true\n");
+        WHEEL_TAGS.forEach(tag -> builder.append("Tag: ").append(tag).append('\n'));
+        return builder.toString();
+    }
+
+    private static String topLevel(File pythonDirectory) {
+        return packageFiles(pythonDirectory).keySet().stream()
+                .filter(path -> path.contains("/"))
+                .map(path -> path.substring(0, path.indexOf('/')))
+                .distinct()
+                .map(name -> name + "\n")
+                .collect(Collectors.joining());
+    }
+
+    /** Escapes a name or version for use in a wheel's file name, as described by PEP 427. */
+    private static String escape(String component) {
+        return component.replaceAll("[^\\w\\d.+]+", "_");
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Value.Immutable
+    interface Metadata {
+        String name();
+
+        String version();
+
+        Optional<String> summary();
+
+        Optional<String> requiresPython();
+
+        List<String> requirements();
+    }
+}
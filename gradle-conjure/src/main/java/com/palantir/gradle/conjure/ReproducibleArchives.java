@@ -0,0 +1,219 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import com.google.common.io.ByteStreams;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.GregorianCalendar;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.gradle.api.file.FileTree;
+
+/**
+ * Rewrites archives so that they only depend on the paths and contents of their entries, and not on when or by whom
+ * they were built. This makes the archives built from identical sources byte-identical, and so cacheable.
+ */
+final class ReproducibleArchives {
+    /** The timestamp given to every entry, in seconds: the earliest a zip file can represent, 1980-01-01. */
+    static final long SOURCE_DATE_EPOCH = 315532800L;
+
+    /** The timestamp given to every zip entry: zip entries store the local time, so this is 1980-01-01 anywhere. */
+    static final long ZIP_ENTRY_TIME = new GregorianCalendar(1980, 0, 1, 0, 0, 0).getTimeInMillis();
+
+    private static final int BLOCK_SIZE = 512;
+
+    private ReproducibleArchives() {}
+
+    /** Rewrites the given zip file, keeping the order and contents of its entries but resetting their timestamps. */
+    static void normalizeZip(File zipFile) {
+        File temp = new File(zipFile.getPath() + ".tmp");
+        try (ZipFile zip = new ZipFile(zipFile);
+                ZipOutputStream output =
+                        new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp.toPath())))) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                ZipEntry normalized = new ZipEntry(entry.getName());
+                normalized.setTime(ZIP_ENTRY_TIME);
+                output.putNextEntry(normalized);
+                try (InputStream input = zip.getInputStream(entry)) {
+                    ByteStreams.copy(input, output);
+                }
+                output.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to normalize " + zipFile, e);
+        }
+        replace(temp, zipFile);
+    }
+
+    /**
+     * Rewrites the given gzipped tar file with its entries sorted by path, and with their timestamps, owners and
+     * permissions reset.
+     */
+    static void normalizeTarGz(FileTree entries, File tarGzFile) {
+        Map<String, byte[]> files = new TreeMap<>();
+        Map<String, Boolean> executable = new TreeMap<>();
+        entries.visit(details -> {
+            String path = details.getRelativePath().getPathString();
+            if (details.isDirectory()) {
+                files.put(path + "/", null);
+            } else {
+                try (InputStream input = details.open()) {
+                    files.put(path, ByteStreams.toByteArray(input));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                executable.put(path, (details.getMode() & 0100) != 0);
+            }
+        });
+
+        File temp = new File(tarGzFile.getPath() + ".tmp");
+        try (TarGzWriter writer = new TarGzWriter(temp)) {
+            for (Map.Entry<String, byte[]> file : files.entrySet()) {
+                if (file.getValue() == null) {
+                    writer.directory(file.getKey());
+                } else {
+                    writer.file(file.getKey(), executable.get(file.getKey()), file.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to normalize " + tarGzFile, e);
+        }
+        replace(temp, tarGzFile);
+    }
+
+    private static void replace(File temp, File target) {
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replace " + target, e);
+        }
+    }
+
+    /** Writes a gzipped POSIX tar file whose entries all have the same timestamp and owner. */
+    static final class TarGzWriter implements Closeable {
+        private final OutputStream output;
+
+        TarGzWriter(File file) throws IOException {
+            // Unlike most tools, GZIPOutputStream leaves the timestamp in the gzip header empty
+            this.output = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())));
+        }
+
+        void directory(String path) throws IOException {
+            writeHeader(path.endsWith("/") ? path : path + "/", '5', 0755, 0);
+        }
+
+        void file(String path, boolean executable, byte[] contents) throws IOException {
+            writeHeader(path, '0', executable ? 0755 : 0644, contents.length);
+            output.write(contents);
+            pad(contents.length);
+        }
+
+        private void writeHeader(String path, char type, int mode, long size) throws IOException {
+            byte[] name = path.getBytes(StandardCharsets.UTF_8);
+            int split = prefixLength(name);
+            if (split < 0) {
+                // Too long for a ustar header, so precede it with a GNU long name entry which tar and Python understand
+                byte[] longName = Arrays.copyOf(name, name.length + 1);
+                byte[] longLink = "././@LongLink".getBytes(StandardCharsets.US_ASCII);
+                writeHeader(longLink, 'L', 0644, longName.length, new byte[0]);
+                output.write(longName);
+                pad(longName.length);
+                writeHeader(Arrays.copyOf(name, 100), type, mode, size, new byte[0]);
+            } else if (split == 0) {
+                writeHeader(name, type, mode, size, new byte[0]);
+            } else {
+                writeHeader(
+                        Arrays.copyOfRange(name, split + 1, name.length), type, mode, size, Arrays.copyOf(name, split));
+            }
+        }
+
+        private void writeHeader(byte[] name, char type, int mode, long size, byte[] prefix) throws IOException {
+            byte[] header = new byte[BLOCK_SIZE];
+            put(header, 0, 100, name);
+            putOctal(header, 100, 8, mode);
+            putOctal(header, 108, 8, 0);
+            putOctal(header, 116, 8, 0);
+            putOctal(header, 124, 12, size);
+            putOctal(header, 136, 12, SOURCE_DATE_EPOCH);
+            Arrays.fill(header, 148, 156, (byte) ' ');
+            header[156] = (byte) type;
+            put(header, 257, 6, "ustar\0".getBytes(StandardCharsets.US_ASCII));
+            put(header, 263, 2, "00".getBytes(StandardCharsets.US_ASCII));
+            put(header, 265, 32, "root".getBytes(StandardCharsets.US_ASCII));
+            put(header, 297, 32, "root".getBytes(StandardCharsets.US_ASCII));
+            put(header, 345, 155, prefix);
+            long checksum = 0;
+            for (byte value : header) {
+                checksum += value & 0xff;
+            }
+            put(header, 148, 8, String.format("%06o\0 ", checksum).getBytes(StandardCharsets.US_ASCII));
+            output.write(header);
+        }
+
+        /** Where to split the path into a ustar prefix and name: 0 if it fits in the name, or -1 if it can't fit. */
+        private static int prefixLength(byte[] name) {
+            if (name.length <= 100) {
+                return 0;
+            }
+            for (int i = Math.max(0, name.length - 101); i < Math.min(name.length, 156); i++) {
+                if (name[i] == '/' && i > 0) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static void put(byte[] header, int offset, int length, byte[] value) {
+            System.arraycopy(value, 0, header, offset, Math.min(length, value.length));
+        }
+
+        private static void putOctal(byte[] header, int offset, int length, long value) {
+            String octal = String.format("%0" + (length - 1) + "o\0", value);
+            put(header, offset, length, octal.getBytes(StandardCharsets.US_ASCII));
+        }
+
+        private void pad(long length) throws IOException {
+            long remainder = length % BLOCK_SIZE;
+            if (remainder != 0) {
+                output.write(new byte[(int) (BLOCK_SIZE - remainder)]);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            output.write(new byte[2 * BLOCK_SIZE]);
+            output.close();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import com.palantir.conjure.java.serialization.ObjectMappers;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Resolves the Java bindings published alongside a conjure IR (see {@link JavaBindingsManifest}), and uses them if
+ * they were generated by the same version of conjure-java with the same options as this project would use. Published
+ * bindings always cover the whole definition, so they are never used when this project filters it.
+ */
+public class ResolvePrebuiltConjureTask extends PrebuiltBindingsTask {
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMappers.newClientObjectMapper();
+    private static final String PRODUCT_DEPENDENCIES_ATTRIBUTE = "Sls-Recommended-Product-Dependencies";
+    private static final String PRODUCT_DEPENDENCIES_FIELD = "recommended-product-dependencies";
+
+    private final Property<String> module = getProject().getObjects().property(String.class);
+    private final Property<String> conjureJavaVersion = getProject().getObjects().property(String.class);
+    private final MapProperty<String, Object> options =
+            getProject().getObjects().mapProperty(String.class, Object.class);
+    private final Property<Boolean> filtered = getProject().getObjects().property(Boolean.class);
+
+    /** The {@code group:name:version} of the conjure IR, or empty if it wasn't resolved from a repository. */
+    @Input
+    public final Property<String> getModule() {
+        return module;
+    }
+
+    @Input
+    public final Property<String> getConjureJavaVersion() {
+        return conjureJavaVersion;
+    }
+
+    @Input
+    public final MapProperty<String, Object> getOptions() {
+        return options;
+    }
+
+    /** Whether this project only generates part of the definition. */
+    @Input
+    public final Property<Boolean> getFiltered() {
+        return filtered;
+    }
+
+    @TaskAction
+    public final void resolve() throws IOException {
+        Optional<List<File>> jars = Optional.of(module.get())
+                .filter(coordinates -> !coordinates.isEmpty())
+                .flatMap(_coordinates -> resolveLeniently(JavaBindingsManifest.CLASSIFIER, "json"))
+                .map(this::readManifest)
+                .flatMap(this::matchingFlavors)
+                .flatMap(this::resolveJars);
+        if (jars.isPresent()) {
+            getLogger().info("Using Java bindings published with {}", module.get());
+            mergeJars(jars.get(), getPrebuiltJar().getAsFile().get());
+            usePrebuiltJar();
+        } else {
+            getLogger().info("No matching Java bindings published with {}", module.get());
+            useGeneratedSources();
+        }
+    }
+
+    /**
+     * The flavors to use if the published bindings were generated exactly like this project would generate them,
+     * or empty if any requested flavor is missing or different.
+     */
+    private Optional<List<String>> matchingFlavors(JavaBindingsManifest manifest) {
+        if (!manifest.conjureJavaVersion().equals(conjureJavaVersion.get())) {
+            getLogger().info(
+                    "Published Java bindings were generated by conjure-java {}, not {}",
+                    manifest.conjureJavaVersion(),
+                    conjureJavaVersion.get());
+            return Optional.empty();
+        }
+        if (filtered.get()) {
+            getLogger().info("Published Java bindings cover the whole definition, but the java filter prunes it");
+            return Optional.empty();
+        }
+
+        Map<String, Object> sharedOptions = new HashMap<>(options.get());
+        sharedOptions.keySet().removeAll(ConjureJavaLocalGeneratorTask.GENERATOR_FLAGS);
+        List<String> flavors = ConjureJavaLocalGeneratorTask.GENERATOR_FLAGS.stream()
+                .filter(flag -> Boolean.TRUE.equals(options.get().get(flag)))
+                .collect(Collectors.toList());
+        for (String flavor : flavors) {
+            List<String> expectedArgs = RenderGeneratorOptions.toArgs(
+                    ImmutableMap.<String, Object>builder()
+                            .putAll(sharedOptions)
+                            .put(flavor, true)
+                            .build(),
+                    ImmutableMap.of());
+            if (!expectedArgs.equals(manifest.generatorArgs().get(flavor))) {
+                getLogger().info(
+                        "Published {} bindings were generated with {}, not {}",
+                        flavor,
+                        manifest.generatorArgs().get(flavor),
+                        expectedArgs);
+                return Optional.empty();
+            }
+        }
+        return flavors.isEmpty() ? Optional.empty() : Optional.of(flavors);
+    }
+
+    private Optional<List<File>> resolveJars(List<String> flavors) {
+        List<File> jars = new ArrayList<>();
+        for (String flavor : flavors) {
+            Optional<File> jar = resolveLeniently(flavor, "jar");
+            if (!jar.isPresent()) {
+                return Optional.empty();
+            }
+            jars.add(jar.get());
+        }
+        return Optional.of(jars);
+    }
+
+    private Optional<File> resolveLeniently(String classifier, String extension) {
+        return resolveLeniently(getProject(), module.get(), classifier, extension);
+    }
+
+    /** Resolves an artifact published alongside the given {@code group:name:version}, if there is one. */
+    static Optional<File> resolveLeniently(Project project, String module, String classifier, String extension) {
+        Configuration configuration = project.getConfigurations()
+                .detachedConfiguration(project.getDependencies()
+                        .create(String.format("%s:%s@%s", module, classifier, extension)));
+        return configuration.getIncoming().artifactView(view -> view.lenient(true)).getFiles().getFiles().stream()
+                .findFirst();
+    }
+
+    private JavaBindingsManifest readManifest(File file) {
+        try {
+            return OBJECT_MAPPER.readValue(file, JavaBindingsManifest.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read Java bindings manifest " + file, e);
+        }
+    }
+
+    /**
+     * Merges the classes of the given jars. Their manifests are replaced by one which only keeps the recommended
+     * product dependencies, so that consumers of the merged jar still see them.
+     */
+    static void mergeJars(List<File> jars, File mergedJar) throws IOException {
+        Files.createDirectories(mergedJar.getParentFile().toPath());
+        Set<String> entries = new HashSet<>();
+        Set<JsonNode> productDependencies = new LinkedHashSet<>();
+        try (OutputStream outputStream = Files.newOutputStream(mergedJar.toPath());
+                ZipOutputStream merged = new ZipOutputStream(outputStream)) {
+            for (File jar : jars) {
+                try (InputStream inputStream = Files.newInputStream(jar.toPath());
+                        ZipInputStream zip = new ZipInputStream(inputStream)) {
+                    for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                        if (entry.getName().equalsIgnoreCase(JarFile.MANIFEST_NAME)) {
+                            productDependencies.addAll(readProductDependencies(new Manifest(zip)));
+                            continue;
+                        }
+                        if (entry.isDirectory() || !entries.add(entry.getName())) {
+                            continue;
+                        }
+                        ZipEntry copy = new ZipEntry(entry.getName());
+                        copy.setTime(entry.getTime());
+                        merged.putNextEntry(copy);
+                        ByteStreams.copy(zip, merged);
+                        merged.closeEntry();
+                    }
+                }
+            }
+            if (!productDependencies.isEmpty()) {
+                merged.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+                productDependenciesManifest(productDependencies).write(merged);
+                merged.closeEntry();
+            }
+        }
+    }
+
+    private static List<JsonNode> readProductDependencies(Manifest manifest) throws IOException {
+        String value = manifest.getMainAttributes().getValue(PRODUCT_DEPENDENCIES_ATTRIBUTE);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+        List<JsonNode> productDependencies = new ArrayList<>();
+        OBJECT_MAPPER.readTree(value).path(PRODUCT_DEPENDENCIES_FIELD).forEach(productDependencies::add);
+        return productDependencies;
+    }
+
+    private static Manifest productDependenciesManifest(Set<JsonNode> productDependencies) throws IOException {
+        ObjectNode value = OBJECT_MAPPER.createObjectNode();
+        value.putArray(PRODUCT_DEPENDENCIES_FIELD).addAll(productDependencies);
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes()
+                .put(new Attributes.Name(PRODUCT_DEPENDENCIES_ATTRIBUTE), OBJECT_MAPPER.writeValueAsString(value));
+        return manifest;
+    }
+}
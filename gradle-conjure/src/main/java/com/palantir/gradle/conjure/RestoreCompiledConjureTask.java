@@ -0,0 +1,110 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/**
+ * Looks up the compiled bindings for a conjure definition in the {@link ConjureJavaCompiledCache}. On a hit, the cached
+ * jar is copied to {@link #getPrebuiltJar()}.
+ */
+public class RestoreCompiledConjureTask extends PrebuiltBindingsTask {
+    private final RegularFileProperty irFile = getProject().getObjects().fileProperty();
+    private final Property<String> conjureJavaVersion = getProject().getObjects().property(String.class);
+    private final Property<String> conjureLibVersion = getProject().getObjects().property(String.class);
+    private final Property<String> targetCompatibility = getProject().getObjects().property(String.class);
+    private final MapProperty<String, Object> options =
+            getProject().getObjects().mapProperty(String.class, Object.class);
+
+    private String cacheKey;
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final RegularFileProperty getIrFile() {
+        return irFile;
+    }
+
+    @Input
+    public final Property<String> getConjureJavaVersion() {
+        return conjureJavaVersion;
+    }
+
+    @Input
+    public final Property<String> getConjureLibVersion() {
+        return conjureLibVersion;
+    }
+
+    @Input
+    public final Property<String> getTargetCompatibility() {
+        return targetCompatibility;
+    }
+
+    @Input
+    public final MapProperty<String, Object> getOptions() {
+        return options;
+    }
+
+    @Internal
+    final String getCacheKey() {
+        return cacheKey;
+    }
+
+    @TaskAction
+    public final void restore() throws IOException {
+        cacheKey = ConjureJavaCompiledCache.cacheKey(
+                irFile.getAsFile().get(),
+                conjureJavaVersion.get(),
+                conjureLibVersion.get(),
+                targetCompatibility.get(),
+                options.get());
+        File cachedJar = new File(ConjureJavaCompiledCache.cacheDirectory(getProject()), cacheKey + ".jar");
+        Path jar = getPrebuiltJar().getAsFile().get().toPath();
+
+        if (cachedJar.isFile() && copyIfExists(cachedJar.toPath(), jar)) {
+            getLogger().info("Using compiled conjure bindings from {}", cachedJar);
+            ConjureJavaCompiledCache.markUsed(cachedJar);
+            usePrebuiltJar();
+        } else {
+            getLogger().info("No compiled conjure bindings cached for key {}", cacheKey);
+            useGeneratedSources();
+        }
+    }
+
+    /** Copies the given entry, unless another build evicted it since it was found. */
+    private static boolean copyIfExists(Path cachedJar, Path jar) throws IOException {
+        Files.createDirectories(jar.getParent());
+        try {
+            Files.copy(cachedJar, jar, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+}
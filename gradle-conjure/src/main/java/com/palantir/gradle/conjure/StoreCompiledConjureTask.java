@@ -0,0 +1,63 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.Task;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.TaskAction;
+
+/** Stores freshly compiled bindings in the {@link ConjureJavaCompiledCache} after a miss. */
+public class StoreCompiledConjureTask extends DefaultTask {
+    private Supplier<File> classesDirectory;
+    private RestoreCompiledConjureTask restoreTask;
+    private Task compileTask;
+
+    public StoreCompiledConjureTask() {
+        // Only store when the bindings were compiled from a cache miss, rather than skipped for any reason
+        onlyIf(_task -> !restoreTask.getState().getSkipped() && !restoreTask.isPrebuilt());
+        // Finalizers also run after a failed compile, whose partial output must never reach the shared cache
+        onlyIf(_task -> compileTask.getState().getFailure() == null && compileTask.getState().getDidWork());
+    }
+
+    @Internal
+    public final File getClassesDirectory() {
+        return classesDirectory.get();
+    }
+
+    final void setClassesDirectory(Supplier<File> classesDirectory) {
+        this.classesDirectory = classesDirectory;
+    }
+
+    final void setRestoreTask(RestoreCompiledConjureTask restoreTask) {
+        this.restoreTask = restoreTask;
+    }
+
+    final void setCompileTask(Task compileTask) {
+        this.compileTask = compileTask;
+    }
+
+    @TaskAction
+    public final void store() {
+        File cacheDirectory = ConjureJavaCompiledCache.cacheDirectory(getProject());
+        File cachedJar = new File(cacheDirectory, restoreTask.getCacheKey() + ".jar");
+        ConjureJavaCompiledCache.store(getClassesDirectory(), cachedJar);
+        getLogger().info("Stored compiled conjure bindings in {}", cachedJar);
+        ConjureJavaCompiledCache.evictUnused(cacheDirectory, System.currentTimeMillis());
+    }
+}
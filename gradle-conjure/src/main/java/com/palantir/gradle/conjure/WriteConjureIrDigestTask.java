@@ -0,0 +1,57 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import java.io.File;
+import java.util.function.Supplier;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+/** Writes the {@link ConjureIrDigest} of the IR, which is published next to the IR. */
+@CacheableTask
+public class WriteConjureIrDigestTask extends DefaultTask {
+    private Supplier<File> irFile;
+
+    @InputFile
+    @PathSensitive(PathSensitivity.NONE)
+    public final File getIrFile() {
+        return irFile.get();
+    }
+
+    final void setIrFile(Supplier<File> irFile) {
+        this.irFile = irFile;
+    }
+
+    /** Lives outside of {@code build/conjure-ir}, so that generators never mistake it for an IR. */
+    @OutputFile
+    public final File getOutputFile() {
+        return new File(
+                getProject().getBuildDir(),
+                "conjure-ir-digest/" + getIrFile().getName().replaceFirst("(\\.conjure)?\\.json$", "")
+                        + "." + ConjureIrDigest.CLASSIFIER + ".json");
+    }
+
+    @TaskAction
+    public final void write() {
+        ConjureIrDigest.write(ConjureIrDigest.of(getIrFile()), getOutputFile());
+    }
+}
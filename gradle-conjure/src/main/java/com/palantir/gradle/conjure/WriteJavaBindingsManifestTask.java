@@ -0,0 +1,71 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.palantir.conjure.java.serialization.ObjectMappers;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+/** Writes the {@link JavaBindingsManifest} describing the Java bindings published with the IR. */
+public class WriteJavaBindingsManifestTask extends DefaultTask {
+    private static final ObjectMapper OBJECT_MAPPER = ObjectMappers.newClientObjectMapper();
+
+    private final Property<String> conjureJavaVersion = getProject().getObjects().property(String.class);
+    private final RegularFileProperty outputFile = getProject().getObjects().fileProperty();
+    private Provider<Map<String, List<String>>> generatorArgs;
+
+    public WriteJavaBindingsManifestTask() {
+        outputFile.set(getProject().getLayout().getBuildDirectory().file("conjure-java-bindings/manifest.json"));
+    }
+
+    @Input
+    public final Property<String> getConjureJavaVersion() {
+        return conjureJavaVersion;
+    }
+
+    @Input
+    public final Provider<Map<String, List<String>>> getGeneratorArgs() {
+        return generatorArgs;
+    }
+
+    final void setGeneratorArgs(Provider<Map<String, List<String>>> generatorArgs) {
+        this.generatorArgs = generatorArgs;
+    }
+
+    @OutputFile
+    public final RegularFileProperty getOutputFile() {
+        return outputFile;
+    }
+
+    @TaskAction
+    public final void write() throws IOException {
+        OBJECT_MAPPER.writeValue(
+                outputFile.getAsFile().get(),
+                ImmutableJavaBindingsManifest.builder()
+                        .conjureJavaVersion(conjureJavaVersion.get())
+                        .generatorArgs(generatorArgs.get())
+                        .build());
+    }
+}
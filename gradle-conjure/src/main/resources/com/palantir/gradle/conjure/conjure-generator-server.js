@@ -0,0 +1,178 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+// Keeps a Node based conjure generator loaded between runs, so that only the first run pays for starting Node and
+// loading the generator's dependencies. The generator's own modules are loaded again for every run, as its entry
+// point usually only requires a module which runs the generator when it is first loaded.
+//
+// Usage: node conjure-generator-server.js <generator executable>
+//
+// Writes the protocol line once ready, then reads one JSON array of generator arguments per line from stdin, runs the
+// generator with them and writes one JSON object per line: {"exitCode": <number>, "output": <string>}. Exits with code
+// 2 straight away if the executable is not a Node script, so that the caller falls back to running it directly.
+
+'use strict';
+
+const asyncHooks = require('async_hooks');
+const fs = require('fs');
+const path = require('path');
+const readline = require('readline');
+
+const PROTOCOL = 'conjure-generator-server 1';
+
+const executable = fs.realpathSync(process.argv[2]);
+const firstLine = fs.readFileSync(executable, 'utf8').split('\n', 1)[0];
+if (!/^#!.*\bnode\b/.test(firstLine)) {
+    process.exit(2);
+}
+
+// The root of the generator's package, which is the closest directory to the executable with a package.json
+function packageRoot(file) {
+    for (let dir = path.dirname(file); ; dir = path.dirname(dir)) {
+        if (fs.existsSync(path.join(dir, 'package.json'))) {
+            return dir;
+        }
+        if (path.dirname(dir) === dir) {
+            return path.dirname(file);
+        }
+    }
+}
+
+const generatorRoot = packageRoot(executable) + path.sep;
+const dependenciesRoot = path.join(generatorRoot, 'node_modules') + path.sep;
+
+function isGeneratorModule(file) {
+    return file.startsWith(generatorRoot) && !file.startsWith(dependenciesRoot);
+}
+
+const writeStdout = process.stdout.write.bind(process.stdout);
+const writeStderr = process.stderr.write.bind(process.stderr);
+const exit = process.exit;
+
+class ExitRequested {
+    constructor(code) {
+        this.code = code;
+    }
+}
+
+// The asynchronous work started by the current run, which is done once all of it has completed
+let run = null;
+let tracking = true;
+asyncHooks.createHook({
+    init(asyncId) {
+        if (run !== null && tracking) {
+            run.pending.add(asyncId);
+        }
+    },
+    destroy(asyncId) {
+        if (run !== null) {
+            run.pending.delete(asyncId);
+        }
+    },
+    promiseResolve(asyncId) {
+        if (run !== null) {
+            run.pending.delete(asyncId);
+        }
+    },
+}).enable();
+
+function finish(exitCode, error) {
+    if (run === null || run.finished) {
+        return;
+    }
+    run.finished = true;
+    if (error !== undefined) {
+        run.output += (error && error.stack ? error.stack : String(error)) + '\n';
+    }
+    const response = JSON.stringify({ exitCode, output: run.output }) + '\n';
+    run = null;
+    process.stdout.write = writeStdout;
+    process.stderr.write = writeStderr;
+    process.exit = exit;
+    process.exitCode = undefined;
+    writeStdout(response);
+    setImmediate(startNextRun);
+}
+
+function onError(error) {
+    finish(error instanceof ExitRequested ? error.code : 1, error instanceof ExitRequested ? undefined : error);
+}
+
+function waitForCompletion() {
+    if (run === null) {
+        return;
+    }
+    if (run.pending.size === 0) {
+        finish(process.exitCode || 0);
+    } else {
+        scheduleCompletionCheck();
+    }
+}
+
+function scheduleCompletionCheck() {
+    // Checking for completion is not part of the run
+    tracking = false;
+    try {
+        setImmediate(waitForCompletion);
+    } finally {
+        tracking = true;
+    }
+}
+
+process.on('uncaughtException', onError);
+process.on('unhandledRejection', onError);
+
+// Runs one request at a time, in the order they were received
+const requests = [];
+
+function startNextRun() {
+    if (run !== null || requests.length === 0) {
+        return;
+    }
+    const line = requests.shift();
+    run = { pending: new Set(), output: '', finished: false };
+    const capture = chunk => {
+        if (run !== null) {
+            run.output += chunk.toString();
+        }
+        return true;
+    };
+    process.stdout.write = capture;
+    process.stderr.write = capture;
+    process.exit = code => {
+        throw new ExitRequested(code === undefined ? process.exitCode || 0 : code);
+    };
+    try {
+        process.argv = [process.argv[0], executable].concat(JSON.parse(line));
+        // The generator's own modules run again, while its dependencies stay loaded
+        Object.keys(require.cache)
+            .filter(isGeneratorModule)
+            .forEach(file => delete require.cache[file]);
+        delete require.cache[executable];
+        require(executable);
+    } catch (error) {
+        onError(error);
+        return;
+    }
+    scheduleCompletionCheck();
+}
+
+readline.createInterface({ input: process.stdin }).on('line', line => {
+    requests.push(line);
+    startNextRun();
+});
+
+writeStdout(PROTOCOL + '\n');
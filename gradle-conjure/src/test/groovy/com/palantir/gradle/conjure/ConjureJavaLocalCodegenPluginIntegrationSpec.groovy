@@ -82,7 +82,7 @@ class ConjureJavaLocalCodegenPluginIntegrationSpec extends IntegrationSpec {
         def result = runTasksSuccessfully(":conjure-api:generateConjure")
 
         then:
-        result.wasExecuted("extractConjureIr")
+        result.wasExecuted("conjure-api:extractConjureIr")
         result.wasExecuted("conjure-api:generateConjure")
         fileExists("build/conjure-ir/conjure-api.conjure.json")
         fileExists('conjure-api/src/generated/java/test/groupwithdashes/com/palantir/conjure/spec/ConjureDefinition.java')
@@ -105,7 +105,7 @@ class ConjureJavaLocalCodegenPluginIntegrationSpec extends IntegrationSpec {
         def result = runTasksSuccessfully(":conjure-api:generateConjure")
 
         then:
-        result.wasExecuted("extractConjureIr")
+        result.wasExecuted("conjure-api:extractConjureIr")
         fileExists('conjure-api/src/generated/java/user/group/com/palantir/conjure/spec/ConjureDefinition.java')
         result.standardOutput.contains "Running with args: [--objects, --packagePrefix=user.group]"
     }
@@ -124,6 +124,58 @@ class ConjureJavaLocalCodegenPluginIntegrationSpec extends IntegrationSpec {
         fileExists('conjure-api/src/generated/java/test/group/com/palantir/conjure/spec/ConjureDefinition.java')
     }
 
+    def 'reuses compiled bindings from the compiled cache'() {
+        addSubproject("conjure-api")
+        file('gradle.properties') << 'com.palantir.conjure.java.compiledCache=true\n'
+        def cacheDir = file('compiled-cache').path.replace('\\', '/')
+        file('gradle.properties') << "com.palantir.conjure.java.compiledCacheDir=${cacheDir}\n"
+        def packagePrefix = 'test.cache'
+        buildFile << "conjure { java { addFlag 'objects'; packagePrefix = '${packagePrefix}' } }"
+        def classFile = "conjure-api/build/classes/java/main/${packagePrefix.replace('.', '/')}" +
+                "/com/palantir/conjure/spec/ConjureDefinition.class"
+        def classEntry = classFile.substring('conjure-api/build/classes/java/main/'.length())
+
+        when:
+        runTasksSuccessfully('compileJava')
+
+        then:
+        fileExists(classFile)
+        !fileExists('conjure-api/build/conjure-compiled/conjure-api.jar')
+        file('compiled-cache').listFiles().findAll { it.name.endsWith('.jar') }.size() == 1
+
+        when:
+        file('conjure-api/build').deleteDir()
+        file('conjure-api/src/generated').deleteDir()
+        ExecutionResult result = runTasksSuccessfully('jar')
+
+        then:
+        result.wasExecuted(':conjure-api:restoreCompiledConjure')
+        fileExists('conjure-api/build/conjure-compiled/conjure-api.jar')
+        !fileExists(classFile)
+        !fileExists('conjure-api/src/generated/java')
+        // In-build consumers get the cached jar from the api configuration, so the project's jar doesn't repeat it
+        new ZipFile(file('conjure-api/build/libs/conjure-api-1.0.0.jar')).getEntry(classEntry) == null
+
+        when:
+        file('conjure-api/build.gradle') << '''
+        apply plugin: 'maven-publish'
+        publishing {
+            repositories {
+                maven { url "$rootDir/repo" }
+            }
+            publications {
+                maven(MavenPublication) {
+                    from components.java
+                }
+            }
+        }
+        '''.stripIndent()
+        runTasksSuccessfully('publish')
+
+        then:
+        new ZipFile(file('repo/test/group/conjure-api/1.0.0/conjure-api-1.0.0.jar')).getEntry(classEntry) != null
+    }
+
     def 'sets up idea source sets correctly'() {
         buildFile << """
         conjure { java { addFlag 'objects' } }
@@ -169,7 +221,7 @@ class ConjureJavaLocalCodegenPluginIntegrationSpec extends IntegrationSpec {
             }
         }
         
-        modifyIr.mustRunAfter extractConjureIr
+        modifyIr.mustRunAfter ':conjure-api:extractConjureIr'
         subprojects {
             tasks.jar.dependsOn modifyIr
         }
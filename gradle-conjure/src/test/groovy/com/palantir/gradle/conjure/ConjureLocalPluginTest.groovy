@@ -16,6 +16,8 @@
 
 package com.palantir.gradle.conjure
 
+import groovy.io.FileType
+import java.util.zip.GZIPOutputStream
 import nebula.test.IntegrationSpec
 import nebula.test.functional.ExecutionResult
 
@@ -109,6 +111,138 @@ class ConjureLocalPluginTest extends IntegrationSpec {
         fileExists('python/python/conjure-api/conjure_spec/__init__.py')
     }
 
+    def "generates typescript in a warm generator server when enabled"() {
+        addSubproject("typescript")
+        createFile('other-api-1.0.0.conjure.json') << '''
+        {
+          "version": 1,
+          "errors": [],
+          "types": [{
+            "type": "object",
+            "object": {
+              "typeName": {"name": "OtherObject", "package": "com.palantir.other"},
+              "fields": [{"fieldName": "value", "type": {"type": "primitive", "primitive": "STRING"}}]
+            }
+          }],
+          "services": []
+        }
+        '''.stripIndent()
+        buildFile << '''
+        dependencies {
+            conjure files('other-api-1.0.0.conjure.json')
+        }
+        '''.stripIndent()
+        file('gradle.properties') << 'com.palantir.conjure.typescript.generatorServer=true\n'
+
+        when:
+        // A single worker sends both definitions to the same server, one after the other
+        ExecutionResult result = runTasksSuccessfully("generateTypeScript", "-i", "--max-workers=1")
+
+        then:
+        result.wasExecuted(":generateTypeScript")
+        result.standardOutput.count('Ran conjure-typescript in a warm generator server') == 2
+        fileExists('typescript/src/conjure-api/index.ts')
+        fileExists('typescript/src/other-api/index.ts')
+        List<File> otherObjects = []
+        file('typescript/src/other-api').eachFileRecurse(FileType.FILES) {
+            if (it.text.contains('interface IOtherObject')) {
+                otherObjects << it
+            }
+        }
+        otherObjects.size() == 1
+    }
+
+    def "only regenerates definitions which changed"() {
+        addSubproject("python")
+        createFile('other-api-1.0.0.conjure.json') << '''
+        {"version": 1, "errors": [], "types": [], "services": []}
+        '''.stripIndent()
+        buildFile << '''
+        dependencies {
+            conjure files('other-api-1.0.0.conjure.json')
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully("generatePython", "-i")
+        file('other-api-1.0.0.conjure.json').text = '''
+        {"version": 1, "errors": [], "types": [], "services": [], "extensions": {}}
+        '''.stripIndent()
+        ExecutionResult result2 = runTasksSuccessfully("generatePython", "-i")
+
+        then:
+        result.standardOutput.contains('Regenerating 2 of 2 conjure definitions')
+        result2.standardOutput.contains('Regenerating 1 of 2 conjure definitions')
+        fileExists('python/python/conjure-api/conjure_spec/__init__.py')
+        fileExists('python/python/other-api')
+    }
+
+    def "generates code for compressed definitions"() {
+        addSubproject("python")
+        new GZIPOutputStream(new FileOutputStream(file('other-api-1.0.0.conjure.json.gz'))).withStream {
+            it << '{"version": 1, "errors": [], "types": [], "services": []}'
+        }
+        buildFile << '''
+        dependencies {
+            conjure files('other-api-1.0.0.conjure.json.gz')
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully("generatePython")
+
+        then:
+        result.wasExecuted(":decompressConjureIr")
+        fileExists('build/conjure-ir-decompressed/other-api-1.0.0.conjure.json')
+        fileExists('python/python/other-api')
+    }
+
+    def "only generates the definitions selected by the filter"() {
+        addSubproject("python")
+        createFile('other-api-1.0.0.conjure.json') << '''
+        {
+          "version": 1,
+          "errors": [],
+          "types": [
+            {"type": "object", "object": {"typeName": {"name": "UsedType", "package": "com.test.api"}, "fields": []}},
+            {"type": "object", "object": {"typeName": {"name": "UnusedType", "package": "com.test.api"}, "fields": []}}
+          ],
+          "services": [{
+            "serviceName": {"name": "TestService", "package": "com.test.api"},
+            "endpoints": [{
+              "endpointName": "getUsed",
+              "httpMethod": "GET",
+              "httpPath": "/used",
+              "args": [],
+              "returns": {"type": "reference", "reference": {"name": "UsedType", "package": "com.test.api"}},
+              "markers": []
+            }]
+          }]
+        }
+        '''.stripIndent()
+        buildFile << '''
+        dependencies {
+            conjure files('other-api-1.0.0.conjure.json')
+        }
+
+        conjure {
+            filter('python') {
+                includeServices 'TestService'
+            }
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully("generatePython")
+        String generated = ''
+        file('python/python/other-api').eachFileRecurse(FileType.FILES) { generated += it.text }
+
+        then:
+        result.wasExecuted(":pruneConjureIrPython")
+        generated.contains('UsedType')
+        !generated.contains('UnusedType')
+    }
+
     def "custom generator throws if generator missing"() {
         addSubproject("postman")
 
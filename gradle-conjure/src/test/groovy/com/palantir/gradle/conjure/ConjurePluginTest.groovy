@@ -16,7 +16,9 @@
 
 package com.palantir.gradle.conjure
 
+import groovy.json.JsonSlurper
 import java.nio.file.Files
+import java.util.zip.ZipFile
 import nebula.test.IntegrationSpec
 import nebula.test.functional.ExecutionResult
 import org.gradle.util.GFileUtils
@@ -140,6 +142,22 @@ class ConjurePluginTest extends IntegrationSpec {
         file('api/build/conjure-ir/api.conjure.json').text.contains('TestServiceFoo')
     }
 
+    def 'runs generators in workers when enabled'() {
+        file('gradle.properties') << 'com.palantir.conjure.generatorWorkers=true\n'
+
+        when:
+        ExecutionResult result = runTasksSuccessfully(':api:compileConjure')
+
+        then:
+        result.wasExecuted(':api:compileConjureObjects')
+        result.wasExecuted(':api:compileConjureTypeScript')
+        fileExists('api/api-objects/src/generated/java/test/test/api/StringExample.java')
+        fileExists('api/api-jersey/src/generated/java/test/test/api/TestServiceFoo.java')
+        fileExists('api/api-typescript/src/index.ts')
+        def objectsReport = new JsonSlurper().parse(file('api/build/reports/conjure/compileConjureObjects.json'))
+        objectsReport.definitions*.name == ['api']
+    }
+
     def 'check code compiles'() {
         when:
         ExecutionResult result = runTasksSuccessfully('check')
@@ -160,12 +178,143 @@ class ConjurePluginTest extends IntegrationSpec {
         fileExists('api/api-objects/.gitignore')
     }
 
+    def 'compiles generated code in its own source set when enabled'() {
+        file('gradle.properties') << '\ncom.palantir.conjure.java.generatedSourceSet=true\n'
+        createFile('api/api-objects/src/main/java/test/test/api/Helper.java') << '''
+        package test.test.api;
+
+        public final class Helper {
+            public static StringExample example() {
+                return StringExample.of("example");
+            }
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully(':api:api-jersey:jar')
+        file('api/api-objects/src/main/java/test/test/api/Helper.java') << '\n// changed\n'
+        ExecutionResult result2 = runTasksSuccessfully(':api:api-objects:jar')
+
+        then:
+        result.wasExecuted(':api:api-objects:compileConjureGeneratedJava')
+        result.wasExecuted(':api:api-objects:compileJava')
+        result.wasExecuted(':api:api-jersey:compileConjureGeneratedJava')
+        fileExists('api/api-objects/build/classes/java/conjureGenerated/test/test/api/StringExample.class')
+        !fileExists('api/api-objects/build/classes/java/main/test/test/api/StringExample.class')
+        def jar = new ZipFile(file('api/api-objects/build/libs/api-objects-0.1.0.jar'))
+        jar.getEntry('test/test/api/StringExample.class') != null
+        jar.getEntry('test/test/api/Helper.class') != null
+
+        result2.wasUpToDate(':api:api-objects:compileConjureGeneratedJava')
+        result2.wasExecuted(':api:api-objects:compileJava')
+    }
+
+    def 'compiles generated types in separate shards when enabled'() {
+        file('gradle.properties') << '\ncom.palantir.conjure.java.compileShards=2\n'
+        createFile('api/api-objects/src/main/java/test/test/api/Helper.java') << '''
+        package test.test.api;
+
+        public final class Helper {
+            public static StringExample example() {
+                return StringExample.of("example");
+            }
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully(':api:api-jersey:jar')
+
+        then:
+        result.wasExecuted(':api:api-objects:planConjureShards')
+        result.wasExecuted(':api:api-objects:compileConjureShard0')
+        result.wasExecuted(':api:api-jersey:compileJava')
+        fileExists('api/api-objects/build/classes/java/conjureShard0/test/test/api/StringExample.class')
+        !fileExists('api/api-objects/build/classes/java/main/test/test/api/StringExample.class')
+        def jar = new ZipFile(file('api/api-objects/build/libs/api-objects-0.1.0.jar'))
+        jar.getEntry('test/test/api/StringExample.class') != null
+        jar.getEntry('test/test/api/Helper.class') != null
+    }
+
+    def 'compiles shards like the generated sources, with their package prefix'() {
+        file('gradle.properties') << '\ncom.palantir.conjure.java.compileShards=2\n'
+        file('api/build.gradle') << '''
+        conjure {
+            java {
+                packagePrefix = 'prefixed'
+            }
+        }
+        '''.stripIndent()
+        createFile('api/api-objects/build.gradle') << '''
+        tasks.withType(JavaCompile).configureEach {
+            if (it.name == 'compileJava') {
+                options.compilerArgs << '-parameters'
+            }
+        }
+        gradle.projectsEvaluated {
+            compileJava.options.encoding = 'UTF-8'
+        }
+        task printShardOptions {
+            doLast {
+                compileConjureShard0.options.compilerArgs << '-Xlint:none'
+                println "shard compilerArgs: ${compileConjureShard1.options.compilerArgs}"
+                println "shard encoding: ${compileConjureShard1.options.encoding}"
+                println "compileJava compilerArgs: ${compileJava.options.compilerArgs}"
+            }
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully(':api:api-objects:jar', ':api:api-objects:printShardOptions')
+
+        then:
+        result.wasExecuted(':api:api-objects:compileConjureShard0')
+        result.standardOutput.contains('shard compilerArgs: [-parameters]')
+        result.standardOutput.contains('shard encoding: UTF-8')
+        result.standardOutput.contains('compileJava compilerArgs: [-parameters]')
+        fileExists('api/api-objects/build/classes/java/conjureShard0/prefixed/test/test/api/StringExample.class')
+        !fileExists('api/api-objects/build/classes/java/main/prefixed/test/test/api/StringExample.class')
+    }
+
+    def 'conjureWatch regenerates code when a definition changes'() {
+        when:
+        ExecutionResult result = runTasksSuccessfully(':api:conjureWatch')
+        file('api/src/main/conjure/other.yml').text = '''
+        types:
+          definitions:
+            default-package: test.test.api
+            objects:
+              OtherExample:
+                fields:
+                  other: string
+        '''.stripIndent()
+        // Runs the same task graph that a continuous build runs again after every change
+        ExecutionResult result2 = runTasksSuccessfully(':api:conjureWatch')
+
+        then:
+        result.standardOutput.contains('run conjureWatch with --continuous')
+        result2.wasExecuted(':api:compileIr')
+        result2.wasExecuted(':api:compileConjureObjects')
+        file('api/api-objects/src/generated/java/test/test/api/OtherExample.java').text.contains('class OtherExample')
+    }
+
+    def 'compileIr reports unknown types with their location'() {
+        file('api/src/main/conjure/api.yml').text = file('api/src/main/conjure/api.yml').text
+                .replace('returns: StringExample', 'returns: StringExampel')
+
+        when:
+        ExecutionResult result = runTasksWithFailure(':api:compileIr')
+
+        then:
+        result.standardError.contains("api.yml:19: Unknown type 'StringExampel'")
+    }
+
     def 'check cache is used'() {
         when:
         ExecutionResult result = runTasksSuccessfully('check')
         ExecutionResult result2 = runTasksSuccessfully('check')
 
         then:
+        result.wasExecuted(':api:checkConjureJavaVersions')
         result.wasExecuted(':api:extractConjureJava')
         result.wasExecuted(':api:api-objects:compileJava')
         result.wasExecuted(':api:compileConjureObjects')
@@ -178,6 +327,7 @@ class ConjurePluginTest extends IntegrationSpec {
         result.wasExecuted(':api:api-dialogue:compileJava')
         result.wasExecuted(':api:compileConjureDialogue')
 
+        result2.wasUpToDate(':api:checkConjureJavaVersions')
         result2.wasUpToDate(':api:extractConjureJava')
         result2.wasUpToDate(':api:api-objects:compileJava')
         result2.wasUpToDate(':api:compileConjureObjects')
@@ -603,6 +753,39 @@ class ConjurePluginTest extends IntegrationSpec {
         runTasksSuccessfully('compileConjure')
     }
 
+    def 'resolves generators once on the root project when shared generators are enabled'() {
+        file('settings.gradle') << '''
+        include 'other-api'
+        include 'other-api:other-api-objects'
+        '''.stripIndent()
+        createFile('other-api/build.gradle') << '''
+        apply plugin: 'com.palantir.conjure'
+        '''.stripIndent()
+        createFile('other-api/src/main/conjure/other-api.yml') << '''
+        types:
+          definitions:
+            default-package: test.test.other
+            objects:
+              OtherExample:
+                fields:
+                  string: string
+        '''.stripIndent()
+        file('gradle.properties') << "\ncom.palantir.conjure.sharedGenerators=true\n"
+
+        when:
+        ExecutionResult result = runTasksSuccessfully('compileConjure')
+
+        then:
+        result.wasExecuted(':extractConjure')
+        result.wasExecuted(':extractConjureJava')
+        !result.wasExecuted(':api:extractConjure')
+        !result.wasExecuted(':api:extractConjureJava')
+        !result.wasExecuted(':other-api:extractConjureJava')
+
+        fileExists('api/api-objects/src/generated/java/test/test/api/StringExample.java')
+        fileExists('other-api/other-api-objects/src/generated/java/test/test/other/OtherExample.java')
+    }
+
     def 'sets up idea source sets correctly'() {
         given:
         createFile('api/api-jersey/some-extra-source-folder')
@@ -632,6 +815,76 @@ class ConjurePluginTest extends IntegrationSpec {
         sourcesFolderUrls.contains('file://$MODULE_DIR$/src/generated/java')
     }
 
+    def 'only generates java sources on idea sync in fast sync mode'() {
+        file('gradle.properties') << '\ncom.palantir.conjure.ideFastSync=true\n'
+        file('build.gradle') << '''
+        allprojects {
+            apply plugin: 'idea'
+        }
+        '''.stripIndent()
+
+        when:
+        ExecutionResult result = runTasksSuccessfully('idea')
+
+        then:
+        result.wasExecuted(':api:compileConjureObjects')
+        result.wasExecuted(':api:compileConjureJersey')
+        !result.wasExecuted(':api:compileConjureTypeScript')
+        !result.wasExecuted(':api:compileConjure')
+        fileExists('api/api-objects/src/generated/java/test/test/api/StringExample.java')
+        !fileExists('api/api-typescript/src/index.ts')
+    }
+
+    def 'reports what each conjure task generated'() {
+        when:
+        ExecutionResult result = runTasksSuccessfully(':api:compileConjure', 'conjureReport')
+
+        then:
+        def objectsReport = new JsonSlurper().parse(file('api/build/reports/conjure/compileConjureObjects.json'))
+        objectsReport.task == ':api:compileConjureObjects'
+        objectsReport.definitions*.name == ['api']
+        objectsReport.definitions[0].generatedFiles.java > 0
+        def irReport = new JsonSlurper().parse(file('api/build/reports/conjure/compileIr.json'))
+        irReport.definitions[0].types == 1
+        irReport.definitions[0].endpoints == 1
+
+        def summary = new JsonSlurper().parse(file('build/reports/conjure-summary.json'))
+        summary.find { it.name == 'api' }.tasks.contains(':api:compileConjureTypeScript')
+        result.standardOutput.contains('Full Conjure report written to')
+    }
+
+    def 'records metrics of conjure tasks'() {
+        when:
+        runTasksSuccessfully(':api:compileConjureObjects')
+        def first = new JsonSlurper().parse(file('build/reports/conjure-metrics.json'))
+        runTasksSuccessfully(':api:compileConjureObjects')
+        def second = new JsonSlurper().parse(file('build/reports/conjure-metrics.json'))
+
+        then:
+        def objects = first.tasks.find { it.task == ':api:compileConjureObjects' }
+        objects.outcome == 'executed'
+        objects.processLaunches == 1
+        objects.execMillis > 0
+        first.tasks.find { it.task == ':api:compileIr' }.outcome == 'executed'
+        first.processLaunches >= 2
+
+        second.tasks.find { it.task == ':api:compileConjureObjects' }.outcome == 'up-to-date'
+        second.outcomes['up-to-date'] >= 2
+    }
+
+    def 'records metrics of conjure tasks which overlap'() {
+        file('gradle.properties') << '\ncom.palantir.conjure.generatorWorkers=true\n'
+
+        when:
+        runTasksSuccessfully(':api:compileConjureObjects', ':api:compileConjureJersey', ':api:compileConjureUndertow')
+
+        then:
+        def metrics = new JsonSlurper().parse(file('build/reports/conjure-metrics.json'))
+        [':api:compileConjureObjects', ':api:compileConjureJersey', ':api:compileConjureUndertow'].every { path ->
+            metrics.tasks.find { it.task == path }?.outcome == 'executed'
+        }
+    }
+
     @RestoreSystemProperties
     def 'works with checkUnusedDependencies'() {
         // Due to errors like 'The configuration :api:api-objects:compileClasspath was resolved without accessing the project in a safe manner.'
@@ -91,5 +91,69 @@ class ConjurePublishTest extends IntegrationSpec {
         // check for just the distribution and no JAR files
         def groupDirectory = GROUP_ID.replaceAll('\\.', '/')
         fileExists("build/maven/${groupDirectory}/${ARTIFACT_ID}/${VERSION}/${ARTIFACT_ID}-${VERSION}.conjure.json")
+        def digest = new groovy.json.JsonSlurper().parse(
+                file("build/maven/${groupDirectory}/${ARTIFACT_ID}/${VERSION}/${ARTIFACT_ID}-${VERSION}-digest.json"))
+        digest.typeHashes.containsKey('test.test.api.StringExample')
+        digest.apiHash.length() == 64
+    }
+
+    def 'publishes java bindings with a manifest when enabled'() {
+        setup:
+        System.setProperty("ignoreDeprecations", "true")
+        file('gradle.properties') << 'com.palantir.conjure.publishJavaBindings=true\n'
+        settingsFile << '''
+            rootProject.name = 'api'
+            include 'api-objects'
+        '''.stripIndent()
+        buildFile << """
+            allprojects {
+                group = '${GROUP_ID}'
+                version = '${VERSION}'
+                repositories {
+                    mavenCentral()
+                    maven {
+                        url 'https://dl.bintray.com/palantir/releases/'
+                    }
+                }
+                configurations.all {
+                   resolutionStrategy {
+                       force 'com.palantir.conjure:conjure:${TestVersions.CONJURE}'
+                       force 'com.palantir.conjure.java:conjure-java:${TestVersions.CONJURE_JAVA}'
+                       force 'com.palantir.conjure.java:conjure-lib:${TestVersions.CONJURE_JAVA}'
+                   }
+                }
+            }
+
+            apply plugin: 'com.palantir.conjure-publish'
+
+            publishing {
+                repositories {
+                    maven {
+                        name 'testRepo'
+                        url "\${projectDir}/build/maven"
+                    }
+                }
+            }
+        """.stripIndent()
+        createFile('src/main/conjure/api.yml') << '''
+        types:
+          definitions:
+            default-package: test.test.api
+            objects:
+              StringExample:
+                fields:
+                  string: string
+        '''.stripIndent()
+
+        when:
+        runTasksSuccessfully('publishConjurePublicationToTestRepoRepository')
+
+        then:
+        def publicationDirectory = "build/maven/${GROUP_ID.replaceAll('\\.', '/')}/api/${VERSION}"
+        fileExists("${publicationDirectory}/api-${VERSION}.conjure.json")
+        fileExists("${publicationDirectory}/api-${VERSION}-objects.jar")
+        def manifest = new groovy.json.JsonSlurper().parse(file("${publicationDirectory}/api-${VERSION}-java-bindings.json"))
+        manifest.conjureJavaVersion == TestVersions.CONJURE_JAVA
+        manifest.generatorArgs.objects.contains('--objects')
     }
 }
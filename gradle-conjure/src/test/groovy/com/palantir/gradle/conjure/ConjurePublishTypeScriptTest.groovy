@@ -140,6 +140,19 @@ class ConjurePublishTypeScriptTest extends IntegrationSpec {
         file('api/api-typescript/src/index.js').text.contains('export * from "./api";')
     }
 
+    def 'compileTypeScript is up-to-date when run for the second time'() {
+        when:
+        ExecutionResult first = runTasksSuccessfully('compileTypeScript')
+        ExecutionResult second = runTasksSuccessfully('compileTypeScript')
+
+        then:
+        first.wasExecuted(':api:compileTypeScript')
+        second.wasUpToDate(':api:compileTypeScript')
+        fileExists('api/build/typescript/index.js')
+        fileExists('api/build/typescript/index.d.ts')
+        file('api/api-typescript/src/index.js').text.contains('export * from "./api";')
+    }
+
     def 'compileConjureTypeScript is up-to-date when run for the second time'() {
         when:
         ExecutionResult first = runTasksSuccessfully('compileConjureTypeScript')
@@ -0,0 +1,94 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure
+
+import java.nio.file.Files
+import java.nio.file.attribute.PosixFilePermission
+import java.util.zip.ZipEntry
+import java.util.zip.ZipOutputStream
+import nebula.test.ProjectSpec
+
+class ExtractExecutableTaskProjectSpec extends ProjectSpec {
+    def 'installs a native executable as bin/<name> with mode 0755'() {
+        def binary = binary('conjure-foo-1.0.0-linux-x86_64')
+        def task = extractTask(binary, false)
+
+        when:
+        extract(task)
+
+        then:
+        def executable = new File(project.projectDir, 'build/conjure-foo/bin/conjure-foo')
+        executable.bytes == binary.bytes
+        Files.getPosixFilePermissions(executable.toPath()) == PosixFilePermission.values().findAll {
+            it != PosixFilePermission.GROUP_WRITE && it != PosixFilePermission.OTHERS_WRITE
+        } as Set
+    }
+
+    def 'installs a native executable for Windows with a batch launcher'() {
+        def binary = binary('conjure-foo-1.0.0-windows-x86_64.exe')
+        def task = extractTask(binary, true)
+
+        when:
+        extract(task)
+
+        then:
+        new File(project.projectDir, 'build/conjure-foo/bin/conjure-foo.exe').bytes == binary.bytes
+        new File(project.projectDir, 'build/conjure-foo/bin/conjure-foo.bat').text == '@"%~dp0conjure-foo.exe" %*\r\n'
+    }
+
+    def 'makes bin entries of zips created on Windows executable'() {
+        def zip = new File(project.projectDir, 'conjure-foo-1.0.0.zip')
+        // Entries written by ZipOutputStream have no unix mode, like those of zips created on Windows
+        new ZipOutputStream(new FileOutputStream(zip)).withCloseable { out ->
+            ['conjure-foo-1.0.0/', 'conjure-foo-1.0.0/bin/', 'conjure-foo-1.0.0/lib/'].each {
+                out.putNextEntry(new ZipEntry(it))
+                out.closeEntry()
+            }
+            ['conjure-foo-1.0.0/bin/conjure-foo', 'conjure-foo-1.0.0/lib/conjure-foo.jar'].each {
+                out.putNextEntry(new ZipEntry(it))
+                out.write(it.bytes)
+                out.closeEntry()
+            }
+        }
+        def task = extractTask(zip, false)
+
+        when:
+        extract(task)
+
+        then:
+        Files.isExecutable(new File(project.projectDir, 'build/conjure-foo/bin/conjure-foo').toPath())
+        !Files.isExecutable(new File(project.projectDir, 'build/conjure-foo/lib/conjure-foo.jar').toPath())
+    }
+
+    private File binary(String name) {
+        def binary = new File(project.projectDir, name)
+        binary.bytes = [0x7f, 0x45, 0x4c, 0x46] as byte[]
+        return binary
+    }
+
+    private ExtractExecutableTask extractTask(File distribution, boolean windows) {
+        def task = ExtractExecutableTask.createExtractTask(
+                project, 'extractConjureFoo', project.files(distribution), project.file('build/conjure-foo'),
+                'conjure-foo')
+        task.setWindows(windows)
+        return task
+    }
+
+    private static void extract(ExtractExecutableTask task) {
+        task.actions.each { it.execute(task) }
+    }
+}
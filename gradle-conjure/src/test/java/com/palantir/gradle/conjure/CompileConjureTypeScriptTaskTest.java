@@ -0,0 +1,77 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CompileConjureTypeScriptTaskTest {
+    private static final FileTime EARLIER = FileTime.fromMillis(1_000_000_000_000L);
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReconcileOnlyRewritesChangedFiles() throws IOException {
+        Path staging = temporaryFolder.newFolder("staging").toPath();
+        Path target = temporaryFolder.newFolder("src").toPath();
+        write(staging.resolve("index.ts"), "export * from \"./api\";");
+        write(staging.resolve("api/service.ts"), "changed");
+        write(target.resolve("index.ts"), "export * from \"./api\";");
+        write(target.resolve("api/service.ts"), "original");
+        Files.setLastModifiedTime(target.resolve("index.ts"), EARLIER);
+
+        CompileConjureTypeScriptTask.reconcile(staging, target);
+
+        assertThat(Files.getLastModifiedTime(target.resolve("index.ts"))).isEqualTo(EARLIER);
+        assertThat(target.resolve("api/service.ts")).hasContent("changed");
+    }
+
+    @Test
+    public void testReconcileRemovesOnlyStaleFiles() throws IOException {
+        Path staging = temporaryFolder.newFolder("staging").toPath();
+        Path target = temporaryFolder.newFolder("src").toPath();
+        write(staging.resolve("index.ts"), "");
+        write(target.resolve("index.ts"), "");
+        write(target.resolve("index.js"), "");
+        write(target.resolve("index.d.ts"), "");
+        write(target.resolve("removed.ts"), "");
+        write(target.resolve("removed.js"), "");
+        write(target.resolve("node_modules/typescript/package.json"), "{}");
+
+        CompileConjureTypeScriptTask.reconcile(staging, target);
+
+        assertThat(target.resolve("index.js")).exists();
+        assertThat(target.resolve("index.d.ts")).exists();
+        assertThat(target.resolve("node_modules/typescript/package.json")).exists();
+        assertThat(target.resolve("removed.ts")).doesNotExist();
+        assertThat(target.resolve("removed.js")).doesNotExist();
+    }
+
+    private static void write(Path path, String contents) throws IOException {
+        Files.createDirectories(path.getParent());
+        Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.palantir.gradle.conjure.ConjureDefinitionValidator.Problem;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.gradle.api.GradleException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConjureDefinitionValidatorTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testValidDefinition() {
+        assertThat(check(String.join(
+                        "\n",
+                        "types:",
+                        "  conjure-imports:",
+                        "    other: other.yml",
+                        "  imports:",
+                        "    ExternalLong:",
+                        "      base-type: string",
+                        "      external:",
+                        "        java: java.lang.Long",
+                        "  definitions:",
+                        "    default-package: test.api",
+                        "    objects:",
+                        "      Example:",
+                        "        fields:",
+                        "          string: string",
+                        "          optional: optional<Alias>",
+                        "          map: map<string, list<ExternalLong>>",
+                        "          imported: other.Type",
+                        "          documented:",
+                        "            type: set<Example>",
+                        "            docs: A field.",
+                        "      Alias:",
+                        "        alias: SafeLong",
+                        "services:",
+                        "  ExampleService:",
+                        "    name: Example Service",
+                        "    package: test.api",
+                        "    endpoints:",
+                        "      get:",
+                        "        http: GET /example",
+                        "        args:",
+                        "          id: rid",
+                        "        returns: Example")))
+                .isEmpty();
+    }
+
+    @Test
+    public void testEmptyDefinition() {
+        assertThat(check("")).isEmpty();
+    }
+
+    @Test
+    public void testInvalidYaml() {
+        assertThat(check("types:\n  definitions: [\n"))
+                .hasSize(1)
+                .allSatisfy(problem -> assertThat(problem.message()).startsWith("Invalid YAML"));
+    }
+
+    @Test
+    public void testUnknownTypes() {
+        assertThat(check(String.join(
+                        "\n",
+                        "types:",
+                        "  definitions:",
+                        "    objects:",
+                        "      Example:",
+                        "        fields:",
+                        "          missing: Missing",
+                        "          nested: map<string, optional<AlsoMissing>>",
+                        "services:",
+                        "  ExampleService:",
+                        "    endpoints:",
+                        "      get:",
+                        "        returns: list<Exmaple>")))
+                .containsExactly(
+                        Problem.of(6, "Unknown type 'Missing'"),
+                        Problem.of(7, "Unknown type 'AlsoMissing'"),
+                        Problem.of(12, "Unknown type 'Exmaple'"));
+    }
+
+    @Test
+    public void testUnknownKeys() {
+        assertThat(check(String.join("\n", "types:", "  defintions: {}", "service: {}")))
+                .containsExactly(
+                        Problem.of(
+                                2, "Unknown key 'defintions', expected one of [conjure-imports, imports, definitions]"),
+                        Problem.of(3, "Unknown key 'service', expected one of [types, services]"));
+    }
+
+    @Test
+    public void testValidateReportsFileAndLine() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        File definition = new File(directory, "nested/api.yml");
+        Files.createDirectories(definition.getParentFile().toPath());
+        Files.write(definition.toPath(), "types:\n  definitions:\n    objects: []\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> ConjureDefinitionValidator.validate(directory))
+                .isInstanceOf(GradleException.class)
+                .hasMessageContaining(
+                        "nested" + File.separator + "api.yml:3: Expected 'objects' to be a mapping");
+    }
+
+    private static Iterable<Problem> check(String contents) {
+        return ConjureDefinitionValidator.check(contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
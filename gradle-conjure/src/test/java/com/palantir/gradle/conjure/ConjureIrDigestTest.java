@@ -0,0 +1,74 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConjureIrDigestTest {
+    private static final String FOO = "{\"type\": \"object\", \"object\": {\"typeName\": {\"name\": \"Foo\", "
+            + "\"package\": \"com.a\"}, \"fields\": [], \"docs\": \"%s\"}}";
+    private static final String BAR = "{\"type\": \"object\", \"object\": {\"typeName\": {\"name\": \"Bar\", "
+            + "\"package\": \"com.a\"}, \"fields\": []}}";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testApiHashIgnoresDocsAndOrder() throws IOException {
+        ConjureIrDigest digest = digest("api.conjure.json", String.format(FOO, "Old docs") + ", " + BAR);
+        ConjureIrDigest reordered = digest("other.conjure.json", BAR + ", " + String.format(FOO, "New docs"));
+
+        assertThat(reordered.irSha256()).isNotEqualTo(digest.irSha256());
+        assertThat(reordered.apiHash()).isEqualTo(digest.apiHash());
+        assertThat(reordered.typeHashes()).containsOnlyKeys("com.a.Foo", "com.a.Bar");
+        assertThat(reordered.typeHashes().get("com.a.Bar")).isEqualTo(digest.typeHashes().get("com.a.Bar"));
+        assertThat(reordered.typeHashes().get("com.a.Foo")).isNotEqualTo(digest.typeHashes().get("com.a.Foo"));
+    }
+
+    @Test
+    public void testApiHashChangesWithTypes() throws IOException {
+        ConjureIrDigest digest = digest("api.conjure.json", BAR);
+        ConjureIrDigest changed = digest("other.conjure.json", BAR.replace("[]", "[{\"fieldName\": \"bar\", "
+                + "\"type\": {\"type\": \"primitive\", \"primitive\": \"STRING\"}}]"));
+
+        assertThat(changed.apiHash()).isNotEqualTo(digest.apiHash());
+    }
+
+    @Test
+    public void testRoundTrips() throws IOException {
+        ConjureIrDigest digest = digest("api.conjure.json", BAR);
+        File digestFile = new File(temporaryFolder.getRoot(), "api.digest.json");
+        ConjureIrDigest.write(digest, digestFile);
+
+        assertThat(ConjureIrDigest.read(digestFile)).isEqualTo(digest);
+    }
+
+    private ConjureIrDigest digest(String name, String types) throws IOException {
+        File irFile = temporaryFolder.newFile(name);
+        String ir = "{\"version\": 1, \"errors\": [], \"types\": [" + types + "], \"services\": []}";
+        Files.write(irFile.toPath(), ir.getBytes(StandardCharsets.UTF_8));
+        return ConjureIrDigest.of(irFile);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.palantir.gradle.conjure.api.GeneratorFilter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import org.junit.Test;
+
+public class ConjureIrPrunerTest {
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    private final JsonNode ir = ir(
+            service(
+                    "com.a",
+                    "FooService",
+                    endpoint("getFoo", reference("com.a", "Foo")),
+                    endpoint("getBar", reference("com.a", "Bar"))),
+            service("com.b", "BazService", endpoint("getBaz", reference("com.b", "Baz"))),
+            object("com.a", "Foo", optional(reference("com.a", "Nested"))),
+            object("com.a", "Nested"),
+            object("com.a", "Bar"),
+            object("com.b", "Baz"),
+            object("com.b", "Unused"));
+
+    @Test
+    public void testEmptyFilterKeepsEverything() {
+        assertThat(ConjureIrPruner.prune(ir, new GeneratorFilter())).isSameAs(ir);
+    }
+
+    @Test
+    public void testIncludedServiceKeepsReferencedTypes() {
+        JsonNode pruned = ConjureIrPruner.prune(ir, new GeneratorFilter().includeServices("FooService"));
+
+        assertThat(serviceNames(pruned)).containsExactly("FooService");
+        assertThat(typeNames(pruned)).containsExactly("Foo", "Nested", "Bar");
+    }
+
+    @Test
+    public void testIncludedEndpointDropsOtherEndpoints() {
+        JsonNode pruned = ConjureIrPruner.prune(ir, new GeneratorFilter().includeEndpoints("com.a.FooService.getFoo"));
+
+        assertThat(pruned.path("services")).hasSize(1);
+        assertThat(pruned.path("services").get(0).path("endpoints")).hasSize(1);
+        assertThat(typeNames(pruned)).containsExactly("Foo", "Nested");
+    }
+
+    @Test
+    public void testIncludedPackageKeepsUnreferencedTypes() {
+        JsonNode pruned = ConjureIrPruner.prune(ir, new GeneratorFilter().includePackages("com.b"));
+
+        assertThat(serviceNames(pruned)).containsExactly("BazService");
+        assertThat(typeNames(pruned)).containsExactly("Baz", "Unused");
+    }
+
+    @Test
+    public void testExcludesDropDefinitions() {
+        JsonNode pruned =
+                ConjureIrPruner.prune(ir, new GeneratorFilter().excludeServices("Baz*").excludePackages("com.b"));
+
+        assertThat(serviceNames(pruned)).containsExactly("FooService");
+        assertThat(typeNames(pruned)).containsExactly("Foo", "Nested", "Bar");
+
+        JsonNode prunedEndpoints = ConjureIrPruner.prune(
+                ir, new GeneratorFilter().includeServices("FooService").excludeEndpoints("*.getBar"));
+        assertThat(typeNames(prunedEndpoints)).containsExactly("Foo", "Nested");
+    }
+
+    private static List<String> serviceNames(JsonNode ir) {
+        return StreamSupport.stream(ir.path("services").spliterator(), false)
+                .map(service -> service.path("serviceName").path("name").asText())
+                .collect(Collectors.toList());
+    }
+
+    private static List<String> typeNames(JsonNode ir) {
+        return StreamSupport.stream(ir.path("types").spliterator(), false)
+                .map(type -> type.path("object").path("typeName").path("name").asText())
+                .collect(Collectors.toList());
+    }
+
+    private static JsonNode ir(ObjectNode... definitions) {
+        ObjectNode ir = FACTORY.objectNode().put("version", 1);
+        ArrayNode types = ir.putArray("types");
+        ArrayNode services = ir.putArray("services");
+        ir.putArray("errors");
+        for (ObjectNode definition : definitions) {
+            (definition.has("serviceName") ? services : types).add(definition);
+        }
+        return ir;
+    }
+
+    private static ObjectNode service(String pkg, String name, ObjectNode... endpoints) {
+        ObjectNode service = FACTORY.objectNode();
+        service.set("serviceName", typeName(pkg, name));
+        service.putArray("endpoints").addAll(Arrays.asList(endpoints));
+        return service;
+    }
+
+    private static ObjectNode endpoint(String name, ObjectNode returns) {
+        ObjectNode endpoint = FACTORY.objectNode().put("endpointName", name).put("httpMethod", "GET");
+        endpoint.putArray("args");
+        endpoint.set("returns", returns);
+        return endpoint;
+    }
+
+    private static ObjectNode object(String pkg, String name, ObjectNode... fieldTypes) {
+        ObjectNode object = FACTORY.objectNode();
+        object.set("typeName", typeName(pkg, name));
+        ArrayNode fields = object.putArray("fields");
+        for (int i = 0; i < fieldTypes.length; i++) {
+            fields.addObject().put("fieldName", "field" + i).set("type", fieldTypes[i]);
+        }
+        ObjectNode type = FACTORY.objectNode().put("type", "object");
+        type.set("object", object);
+        return type;
+    }
+
+    private static ObjectNode optional(ObjectNode itemType) {
+        ObjectNode optional = FACTORY.objectNode().put("type", "optional");
+        optional.putObject("optional").set("itemType", itemType);
+        return optional;
+    }
+
+    private static ObjectNode reference(String pkg, String name) {
+        ObjectNode reference = FACTORY.objectNode().put("type", "reference");
+        reference.set("reference", typeName(pkg, name));
+        return reference;
+    }
+
+    private static ObjectNode typeName(String pkg, String name) {
+        return FACTORY.objectNode().put("name", name).put("package", pkg);
+    }
+}
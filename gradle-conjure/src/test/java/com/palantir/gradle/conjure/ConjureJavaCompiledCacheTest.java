@@ -0,0 +1,75 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ConjureJavaCompiledCacheTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testStoresClassesAsJar() throws IOException {
+        File classes = temporaryFolder.newFolder("classes");
+        Files.createDirectories(classes.toPath().resolve("com/palantir"));
+        Files.write(classes.toPath().resolve("com/palantir/Foo.class"), "foo".getBytes(StandardCharsets.UTF_8));
+
+        File cacheFile = new File(temporaryFolder.getRoot(), "cache/key.jar");
+        ConjureJavaCompiledCache.store(classes, cacheFile);
+
+        try (ZipFile jar = new ZipFile(cacheFile)) {
+            assertThat(jar.getEntry("com/palantir/Foo.class")).isNotNull();
+        }
+        assertThat(cacheFile.getParentFile().list()).containsExactly("key.jar");
+    }
+
+    @Test
+    public void testEvictsEntriesWhichWereNotUsedRecently() throws IOException {
+        File cacheDirectory = temporaryFolder.newFolder("cache");
+        long now = System.currentTimeMillis();
+        long expired = now - ConjureJavaCompiledCache.MAX_UNUSED_AGE.toMillis() - TimeUnit.DAYS.toMillis(1);
+        File unused = entry(cacheDirectory, "unused.jar", expired);
+        File used = entry(cacheDirectory, "used.jar", expired);
+        File recent = entry(cacheDirectory, "recent.jar", now - TimeUnit.DAYS.toMillis(1));
+        File other = entry(cacheDirectory, "other.txt", expired);
+
+        ConjureJavaCompiledCache.markUsed(used);
+        ConjureJavaCompiledCache.evictUnused(cacheDirectory, now);
+
+        assertThat(unused).doesNotExist();
+        assertThat(used).exists();
+        assertThat(recent).exists();
+        assertThat(other).exists();
+    }
+
+    private static File entry(File cacheDirectory, String name, long lastModified) throws IOException {
+        File entry = new File(cacheDirectory, name);
+        Files.write(entry.toPath(), new byte[0]);
+        assertThat(entry.setLastModified(lastModified)).isTrue();
+        return entry;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class ConjureShardPlannerTest {
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    @Test
+    public void testReferencingTypesShareAShard() {
+        ObjectNode ir = FACTORY.objectNode();
+        ArrayNode types = ir.putArray("types");
+        types.add(object("A", "B"));
+        types.add(object("B"));
+        types.add(object("C", "D"));
+        types.add(object("D", "C"));
+        types.add(object("E"));
+
+        List<Set<String>> shards = ConjureShardPlanner.plan(ir, 2);
+
+        assertThat(shards).containsExactly(
+                ImmutableSet.of("com.test.A", "com.test.B", "com.test.E"),
+                ImmutableSet.of("com.test.C", "com.test.D"));
+    }
+
+    @Test
+    public void testSpreadsIndependentTypesEvenly() {
+        ObjectNode ir = FACTORY.objectNode();
+        ArrayNode types = ir.putArray("types");
+        for (int i = 0; i < 10; i++) {
+            types.add(object("Type" + i));
+        }
+
+        List<Set<String>> shards = ConjureShardPlanner.plan(ir, 3);
+
+        assertThat(shards).extracting(Set::size).containsExactly(4, 3, 3);
+    }
+
+    @Test
+    public void testLeavesSurplusShardsEmpty() {
+        ObjectNode ir = FACTORY.objectNode();
+        ir.putArray("types").add(object("A"));
+
+        assertThat(ConjureShardPlanner.plan(ir, 3)).extracting(Set::size).containsExactly(1, 0, 0);
+    }
+
+    private static ObjectNode object(String name, String... references) {
+        ObjectNode object = FACTORY.objectNode();
+        object.putObject("typeName").put("name", name).put("package", "com.test");
+        ArrayNode fields = object.putArray("fields");
+        for (String reference : references) {
+            ObjectNode type = fields.addObject().put("fieldName", reference).putObject("type");
+            type.put("type", "reference").putObject("reference").put("name", reference).put("package", "com.test");
+        }
+        ObjectNode type = FACTORY.objectNode().put("type", "object");
+        type.set("object", object);
+        return type;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Map;
+import org.junit.Test;
+
+public class ConjureSharedTypesTest {
+    private static final JsonNodeFactory FACTORY = JsonNodeFactory.instance;
+
+    @Test
+    public void testOwnsIdenticalTypesOnce() {
+        Map<String, String> owners = ConjureSharedTypes.owners(ConjureSharedTypes.hashesByType(ImmutableMap.of(
+                "foo-api", ir(object("com.shared", "PageToken", "Old docs"), object("com.foo", "Foo", "")),
+                "bar-api", ir(object("com.shared", "PageToken", "New docs"), object("com.bar", "Bar", "")))));
+
+        assertThat(owners).containsOnly(entry("com.shared.PageToken", "bar-api"));
+    }
+
+    @Test
+    public void testDoesNotShareConflictingTypes() {
+        ObjectNode changed = object("com.shared", "PageToken", "");
+        ((ObjectNode) changed.path("object")).putArray("fields").addObject().put("fieldName", "token");
+
+        Map<String, String> owners = ConjureSharedTypes.owners(ConjureSharedTypes.hashesByType(ImmutableMap.of(
+                "foo-api", ir(object("com.shared", "PageToken", "")),
+                "bar-api", ir(changed))));
+
+        assertThat(owners).isEmpty();
+    }
+
+    @Test
+    public void testMatchesGeneratedFilesOfOtherDirectories() {
+        Map<String, String> ownersBySourcePath =
+                ConjureSharedTypes.ownersBySourcePath(ImmutableMap.of("com.shared.PageToken", "bar-api"));
+
+        assertThat(ConjureSharedTypes.isDuplicate(ownersBySourcePath, "foo-api/com/shared/PageToken.java")).isTrue();
+        assertThat(ConjureSharedTypes.isDuplicate(ownersBySourcePath, "foo-api/prefix/com/shared/PageToken.java"))
+                .isTrue();
+        assertThat(ConjureSharedTypes.isDuplicate(ownersBySourcePath, "bar-api/com/shared/PageToken.java")).isFalse();
+        assertThat(ConjureSharedTypes.isDuplicate(ownersBySourcePath, "foo-api/com/shared/Other.java")).isFalse();
+        assertThat(ConjureSharedTypes.isDuplicate(ownersBySourcePath, "PageToken.java")).isFalse();
+    }
+
+    private static JsonNode ir(ObjectNode... types) {
+        ObjectNode ir = FACTORY.objectNode().put("version", 1);
+        ir.putArray("types").addAll(Arrays.asList(types));
+        return ir;
+    }
+
+    private static ObjectNode object(String pkg, String name, String docs) {
+        ObjectNode object = FACTORY.objectNode();
+        object.putObject("typeName").put("package", pkg).put("name", name);
+        object.putArray("fields");
+        object.put("docs", docs);
+        ObjectNode type = FACTORY.objectNode().put("type", "object");
+        type.set("object", object);
+        return type;
+    }
+}
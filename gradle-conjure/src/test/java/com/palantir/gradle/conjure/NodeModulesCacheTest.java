@@ -0,0 +1,102 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class NodeModulesCacheTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testCacheKeyOnlyDependsOnDependencies() throws IOException {
+        String first = NodeModulesCache.cacheKey(packageJson("{\"name\": \"api\", \"version\": \"1.0.0\", "
+                + "\"dependencies\": {\"a\": \"^1.0.0\", \"b\": \"^2.0.0\"}}"));
+        String reordered = NodeModulesCache.cacheKey(packageJson("{\"version\": \"1.1.0\", \"name\": \"api\", "
+                + "\"dependencies\": {\"b\": \"^2.0.0\", \"a\": \"^1.0.0\"}}"));
+        String upgraded = NodeModulesCache.cacheKey(packageJson("{\"name\": \"api\", \"version\": \"1.1.0\", "
+                + "\"dependencies\": {\"a\": \"^1.1.0\", \"b\": \"^2.0.0\"}}"));
+
+        assertThat(reordered).isEqualTo(first);
+        assertThat(upgraded).isNotEqualTo(first);
+    }
+
+    @Test
+    public void testStoreAndRestore() throws IOException {
+        Path nodeModules = temporaryFolder.newFolder("node_modules").toPath();
+        Files.createDirectories(nodeModules.resolve("a/lib"));
+        Files.write(nodeModules.resolve("a/lib/index.js"), "module.exports = 1;".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(nodeModules.resolve(".bin"));
+        Files.createSymbolicLink(nodeModules.resolve(".bin/a"), Paths.get("../a/lib/index.js"));
+
+        File cacheEntry = new File(temporaryFolder.getRoot(), "cache/key");
+        NodeModulesCache.store(nodeModules.toFile(), cacheEntry);
+        File restored = new File(temporaryFolder.getRoot(), "restored/node_modules");
+        Files.createDirectories(restored.toPath().resolve("stale"));
+        NodeModulesCache.restore(cacheEntry, restored);
+
+        assertThat(new File(restored, "a/lib/index.js")).hasContent("module.exports = 1;");
+        assertThat(Files.readSymbolicLink(restored.toPath().resolve(".bin/a")))
+                .isEqualTo(Paths.get("../a/lib/index.js"));
+        assertThat(new File(restored, "stale")).doesNotExist();
+    }
+
+    @Test
+    public void testWritesToRestoredFilesLeaveEntryUnchanged() throws IOException {
+        Path nodeModules = temporaryFolder.newFolder("node_modules").toPath();
+        Files.createDirectories(nodeModules.resolve("a"));
+        Files.write(nodeModules.resolve("a/index.js"), "module.exports = 1;".getBytes(StandardCharsets.UTF_8));
+        File cacheEntry = new File(temporaryFolder.getRoot(), "cache/key");
+        NodeModulesCache.store(nodeModules.toFile(), cacheEntry);
+
+        File restored = new File(temporaryFolder.getRoot(), "restored/node_modules");
+        NodeModulesCache.restore(cacheEntry, restored);
+        Files.write(restored.toPath().resolve("a/index.js"), "module.exports = 2;".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new File(cacheEntry, "a/index.js")).hasContent("module.exports = 1;");
+    }
+
+    @Test
+    public void testStoreKeepsExistingEntry() throws IOException {
+        File cacheEntry = new File(temporaryFolder.getRoot(), "cache/key");
+        Files.createDirectories(cacheEntry.toPath());
+        Files.write(cacheEntry.toPath().resolve("first"), new byte[0]);
+        File nodeModules = temporaryFolder.newFolder("node_modules");
+        Files.write(nodeModules.toPath().resolve("second"), new byte[0]);
+
+        NodeModulesCache.store(nodeModules, cacheEntry);
+
+        assertThat(cacheEntry.list()).containsExactly("first");
+        assertThat(new File(temporaryFolder.getRoot(), "cache").list()).containsExactly("key");
+    }
+
+    private File packageJson(String contents) throws IOException {
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class OsUtilsTest {
+    @Test
+    public void testNativeClassifierFollowsOsMavenPluginNames() {
+        assertThat(OsUtils.nativeClassifier("Linux", "amd64")).isEqualTo("linux-x86_64");
+        assertThat(OsUtils.nativeClassifier("Mac OS X", "aarch64")).isEqualTo("osx-aarch_64");
+        assertThat(OsUtils.nativeClassifier("Windows 10", "x86_64")).isEqualTo("windows-x86_64");
+        assertThat(OsUtils.nativeClassifier("FreeBSD", "ppc64le")).isEqualTo("freebsd-ppc64le");
+    }
+
+    @Test
+    public void testNativeExtensionIsConfiguredPerGeneratorAndOs() {
+        Map<String, Object> properties = ImmutableMap.of(
+                "com.palantir.conjure.nativeGenerators.conjure-java", "zip",
+                "com.palantir.conjure.nativeGenerators.conjure-java.windows", "exe");
+
+        assertThat(OsUtils.nativeExtension(properties::get, "conjure-java", "linux")).hasValue("zip");
+        assertThat(OsUtils.nativeExtension(properties::get, "conjure-java", "windows")).hasValue("exe");
+        assertThat(OsUtils.nativeExtension(properties::get, "conjure-typescript", "linux")).isEmpty();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PythonDistributionsTest {
+    private static final String SETUP_PY = "from setuptools import (\n"
+            + "    find_packages,\n"
+            + "    setup,\n"
+            + ")\n"
+            + "\n"
+            + "setup(\n"
+            + "    name='conjure-api',\n"
+            + "    version='1.0.0',\n"
+            + "    python_requires='>=3.6',\n"
+            + "    description='conjure-api',\n"
+            + "    package_data={\"\": [\"py.typed\"]},\n"
+            + "    packages=find_packages(),\n"
+            + "    install_requires=[\n"
+            + "        'requests',\n"
+            + "        \"conjure-python-client>=1.0.0,<2\",\n"
+            + "    ],\n"
+            + ")\n";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File pythonDirectory;
+
+    @Before
+    public void before() throws IOException {
+        pythonDirectory = temporaryFolder.newFolder("python");
+        write("setup.py", SETUP_PY);
+        write("conjure_api/__init__.py", "");
+        write("conjure_api/py.typed", "");
+        write("conjure_api/conjure_spec/__init__.py", "class ConjureDefinition(object): pass\n");
+        write("conjure_api/not_a_package/ignored.py", "");
+    }
+
+    @Test
+    public void testReadMetadata() {
+        PythonDistributions.Metadata metadata = PythonDistributions.readMetadata(new File(pythonDirectory, "setup.py"));
+
+        assertThat(metadata.name()).isEqualTo("conjure-api");
+        assertThat(metadata.version()).isEqualTo("1.0.0");
+        assertThat(metadata.requirements()).containsExactly("requests", "conjure-python-client>=1.0.0,<2");
+        assertThat(metadata.requiresPython()).hasValue(">=3.6");
+        assertThat(metadata.summary()).hasValue("conjure-api");
+    }
+
+    @Test
+    public void testReadMetadataWithOverriddenPackageNameAndVersion() throws IOException {
+        write("setup.py", SETUP_PY.replace("name='conjure-api'", "name='custom-api'")
+                .replace("version='1.0.0'", "version=\"2.0.0rc1\""));
+
+        PythonDistributions.Metadata metadata = PythonDistributions.readMetadata(new File(pythonDirectory, "setup.py"));
+        File wheel =
+                PythonDistributions.writeWheel(pythonDirectory, metadata, temporaryFolder.newFolder("dist"));
+
+        assertThat(metadata.name()).isEqualTo("custom-api");
+        assertThat(metadata.version()).isEqualTo("2.0.0rc1");
+        assertThat(wheel).hasName("custom_api-2.0.0rc1-py2.py3-none-any.whl");
+        try (ZipFile zip = new ZipFile(wheel)) {
+            assertThat(read(zip, "custom_api-2.0.0rc1.dist-info/METADATA"))
+                    .contains("Name: custom-api\n")
+                    .contains("Version: 2.0.0rc1\n");
+        }
+    }
+
+    @Test
+    public void testWriteWheel() throws IOException {
+        PythonDistributions.Metadata metadata = PythonDistributions.readMetadata(new File(pythonDirectory, "setup.py"));
+        File wheel =
+                PythonDistributions.writeWheel(pythonDirectory, metadata, temporaryFolder.newFolder("dist"));
+
+        assertThat(wheel).hasName("conjure_api-1.0.0-py2.py3-none-any.whl");
+        try (ZipFile zip = new ZipFile(wheel)) {
+            assertThat(zip.stream().map(ZipEntry::getName)).containsExactly(
+                    "conjure_api/__init__.py",
+                    "conjure_api/conjure_spec/__init__.py",
+                    "conjure_api/py.typed",
+                    "conjure_api-1.0.0.dist-info/METADATA",
+                    "conjure_api-1.0.0.dist-info/WHEEL",
+                    "conjure_api-1.0.0.dist-info/top_level.txt",
+                    "conjure_api-1.0.0.dist-info/RECORD");
+            assertThat(read(zip, "conjure_api-1.0.0.dist-info/METADATA"))
+                    .contains("Name: conjure-api\n")
+                    .contains("Requires-Dist: conjure-python-client>=1.0.0,<2\n");
+            assertThat(read(zip, "conjure_api-1.0.0.dist-info/RECORD"))
+                    .startsWith("conjure_api/__init__.py,sha256=47DEQpj8HBSa-_TImW-5JCeuQeRkm5NMpJWZG3hSuFU,0\n")
+                    .endsWith("conjure_api-1.0.0.dist-info/RECORD,,\n");
+        }
+    }
+
+    @Test
+    public void testWriteSdistIsReproducible() throws IOException {
+        PythonDistributions.Metadata metadata = PythonDistributions.readMetadata(new File(pythonDirectory, "setup.py"));
+
+        File first = PythonDistributions.writeSdist(pythonDirectory, metadata, temporaryFolder.newFolder("first"));
+        File second = PythonDistributions.writeSdist(pythonDirectory, metadata, temporaryFolder.newFolder("second"));
+
+        assertThat(first).hasName("conjure-api-1.0.0.tar.gz");
+        assertThat(Files.readAllBytes(first.toPath())).isEqualTo(Files.readAllBytes(second.toPath()));
+    }
+
+    private void write(String path, String contents) throws IOException {
+        Path file = pythonDirectory.toPath().resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(ZipFile zip, String name) throws IOException {
+        try (InputStream input = zip.getInputStream(zip.getEntry(name))) {
+            return new String(ByteStreams.toByteArray(input), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReproducibleArchivesTest {
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testNormalizeZipResetsTimestamps() throws IOException {
+        File first = zip("first.whl", 1_500_000_000_000L);
+        File second = zip("second.whl", 1_600_000_000_000L);
+
+        ReproducibleArchives.normalizeZip(first);
+        ReproducibleArchives.normalizeZip(second);
+
+        assertThat(Files.readAllBytes(first.toPath())).isEqualTo(Files.readAllBytes(second.toPath()));
+        try (ZipFile zip = new ZipFile(first)) {
+            assertThat(zip.stream().map(ZipEntry::getName)).containsExactly("conjure_spec/__init__.py", "RECORD");
+        }
+    }
+
+    @Test
+    public void testTarGzWriterIsDeterministic() throws IOException {
+        File first = tarGz("first.tar.gz");
+        File second = tarGz("second.tar.gz");
+
+        assertThat(Files.readAllBytes(first.toPath())).isEqualTo(Files.readAllBytes(second.toPath()));
+    }
+
+    @Test
+    public void testTarGzWriterSplitsLongPaths() throws IOException {
+        File archive = tarGz("archive.tar.gz");
+
+        byte[] tar;
+        try (GZIPInputStream input = new GZIPInputStream(Files.newInputStream(archive.toPath()))) {
+            tar = ByteStreams.toByteArray(input);
+        }
+        // The directory, the file with a short name, and the file whose path is split into a prefix and a name
+        String secondName = new String(tar, 3 * 512, 100, StandardCharsets.UTF_8).trim();
+        String secondPrefix = new String(tar, 3 * 512 + 345, 155, StandardCharsets.UTF_8).trim();
+        assertThat(secondPrefix + "/" + secondName).isEqualTo(longPath());
+        assertThat(tar.length % 512).isZero();
+    }
+
+    private File zip(String name, long time) throws IOException {
+        File file = temporaryFolder.newFile(name);
+        try (ZipOutputStream output = new ZipOutputStream(Files.newOutputStream(file.toPath()))) {
+            for (String entryName : new String[] {"conjure_spec/__init__.py", "RECORD"}) {
+                ZipEntry entry = new ZipEntry(entryName);
+                entry.setTime(time);
+                output.putNextEntry(entry);
+                output.write(entryName.getBytes(StandardCharsets.UTF_8));
+                output.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private File tarGz(String name) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        try (ReproducibleArchives.TarGzWriter writer = new ReproducibleArchives.TarGzWriter(file)) {
+            writer.directory("conjure-api-1.0.0");
+            writer.file("conjure-api-1.0.0/setup.py", false, "import setuptools".getBytes(StandardCharsets.UTF_8));
+            writer.file(longPath(), false, new byte[0]);
+        }
+        return file;
+    }
+
+    private static String longPath() {
+        return "conjure-api-1.0.0/conjure_spec/" + Strings.repeat("a", 80) + "/b.py";
+    }
+}
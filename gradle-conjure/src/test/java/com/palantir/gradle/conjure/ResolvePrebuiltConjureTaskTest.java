@@ -0,0 +1,87 @@
+/*
+ * (c) Copyright 2020 Palantir Technologies Inc. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.palantir.gradle.conjure;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResolvePrebuiltConjureTaskTest {
+    private static final String PRODUCT_DEPENDENCIES = "{\"recommended-product-dependencies\":[{\"product-group\":"
+            + "\"com.palantir.conjure\",\"product-name\":\"conjure\",\"minimum-version\":\"1.0.0\"}]}";
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMergeJarsKeepsProductDependencies() throws IOException {
+        File objects = jar("api-objects.jar", "api/Foo.class", PRODUCT_DEPENDENCIES);
+        File jersey = jar("api-jersey.jar", "api/FooService.class", PRODUCT_DEPENDENCIES);
+        File merged = new File(temporaryFolder.getRoot(), "merged/api.jar");
+
+        ResolvePrebuiltConjureTask.mergeJars(ImmutableList.of(objects, jersey), merged);
+
+        try (JarFile jar = new JarFile(merged)) {
+            assertThat(jar.getEntry("api/Foo.class")).isNotNull();
+            assertThat(jar.getEntry("api/FooService.class")).isNotNull();
+            assertThat(jar.getManifest().getMainAttributes().getValue("Sls-Recommended-Product-Dependencies"))
+                    .isEqualTo(PRODUCT_DEPENDENCIES);
+        }
+    }
+
+    @Test
+    public void testMergeJarsWithoutProductDependenciesHasNoManifest() throws IOException {
+        File objects = jar("api-objects.jar", "api/Foo.class", null);
+        File merged = new File(temporaryFolder.getRoot(), "api.jar");
+
+        ResolvePrebuiltConjureTask.mergeJars(ImmutableList.of(objects), merged);
+
+        try (JarFile jar = new JarFile(merged)) {
+            assertThat(jar.getEntry("api/Foo.class")).isNotNull();
+            assertThat(jar.getEntry(JarFile.MANIFEST_NAME)).isNull();
+        }
+    }
+
+    private File jar(String name, String className, String productDependencies) throws IOException {
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (productDependencies != null) {
+            manifest.getMainAttributes()
+                    .put(new Attributes.Name("Sls-Recommended-Product-Dependencies"), productDependencies);
+        }
+        File file = temporaryFolder.newFile(name);
+        try (OutputStream outputStream = Files.newOutputStream(file.toPath());
+                JarOutputStream jar = new JarOutputStream(outputStream, manifest)) {
+            jar.putNextEntry(new ZipEntry(className));
+            jar.write(className.getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        return file;
+    }
+}